@@ -0,0 +1,78 @@
+package ru.kmoiseev.archive.googlesheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.kmoiseev.archive.googlesheet.impl.ConcurrentGoogleSheet;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Throughput of readers evaluating a {@link ConcurrentGoogleSheet} while a writer keeps updating it.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentSheetBenchmark {
+
+    @Param({"10000"})
+    public int size;
+
+    private ConcurrentGoogleSheet sheet;
+    private String[] addresses;
+    private long writes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sheet = new ConcurrentGoogleSheet();
+        addresses = new String[size];
+        sheet.putValue("C0", "0");
+        addresses[0] = "C0";
+        for (int i = 1; i < size; i++) {
+            addresses[i] = "C" + i;
+            sheet.putValue(addresses[i], "=C" + (i - 1) + "+ONE");
+        }
+        sheet.putValue("ONE", "1");
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(7)
+    public Long read(ReaderState reader) {
+        return sheet.evaluate(addresses[reader.next(size)]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public boolean write() {
+        return sheet.putValue(addresses[size - 1 - (int) (writes++ % 64)], "=C0+ONE");
+    }
+
+    @State(Scope.Thread)
+    public static class ReaderState {
+        private int next;
+
+        int next(int size) {
+            next = next + 1 == size ? 0 : next + 1;
+            return next;
+        }
+    }
+}
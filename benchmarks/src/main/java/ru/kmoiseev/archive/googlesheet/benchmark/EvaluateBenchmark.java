@@ -0,0 +1,66 @@
+package ru.kmoiseev.archive.googlesheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.kmoiseev.archive.googlesheet.impl.GoogleSheetImpl;
+import ru.kmoiseev.archive.googlesheet.impl.GoogleSheetSettings;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Latency of evaluating the root of a sheet: after the leaf changed, which evaluates the whole sheet again,
+ * and with everything already evaluated, which is a read. Run with -prof gc to see the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EvaluateBenchmark {
+
+    @Param({"DEEP_CHAIN", "WIDE_FAN_IN", "CYCLIC", "RANDOM"})
+    public SheetShape shape;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"-1", "1024"})
+    public int maximumCachedValues;
+
+    private GoogleSheetImpl sheet;
+    private long leafValue;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sheet = new GoogleSheetImpl(GoogleSheetSettings.builder()
+                .maximumCachedValues(maximumCachedValues)
+                .build());
+        shape.fill(sheet, size);
+        sheet.evaluate(SheetShape.ROOT);
+    }
+
+    @Benchmark
+    public Long evaluateAfterLeafChange() {
+        sheet.putValue(SheetShape.LEAF, String.valueOf(++leafValue & 1023));
+        return sheet.evaluate(SheetShape.ROOT);
+    }
+
+    @Benchmark
+    public Long evaluateEvaluated() {
+        return sheet.evaluate(SheetShape.ROOT);
+    }
+}
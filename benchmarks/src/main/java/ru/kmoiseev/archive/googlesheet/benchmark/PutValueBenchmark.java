@@ -0,0 +1,71 @@
+package ru.kmoiseev.archive.googlesheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.kmoiseev.archive.googlesheet.impl.GoogleSheetImpl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Throughput of putting numbers and formulas into a sheet of the given number of cells,
+ * overwriting them round robin, so parsing, storage and dependency graph updates are measured without evaluation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PutValueBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private GoogleSheetImpl sheet;
+    private String[] addresses;
+    private String[] formulas;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sheet = new GoogleSheetImpl();
+        addresses = new String[size];
+        formulas = new String[size];
+        for (int i = 0; i < size; i++) {
+            addresses[i] = "A" + (i + 1);
+            formulas[i] = "=A" + (i + 2) + "+B" + (i + 1);
+            sheet.putValue(addresses[i], "0");
+        }
+    }
+
+    @Benchmark
+    public boolean putNumber() {
+        final int i = next();
+        return sheet.putValue(addresses[i], "12345");
+    }
+
+    @Benchmark
+    public boolean putSum() {
+        final int i = next();
+        return sheet.putValue(addresses[i], formulas[i]);
+    }
+
+    private int next() {
+        final int i = next;
+        next = i + 1 == size ? 0 : i + 1;
+        return i;
+    }
+}
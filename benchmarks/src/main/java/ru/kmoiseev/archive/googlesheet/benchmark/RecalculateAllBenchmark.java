@@ -0,0 +1,79 @@
+package ru.kmoiseev.archive.googlesheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.kmoiseev.archive.googlesheet.impl.GoogleSheetImpl;
+import ru.kmoiseev.archive.googlesheet.impl.GoogleSheetSettings;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Full recalculation of a sheet of wide and shallow trees: a quarter of the cells are numbers,
+ * every other cell sums two cells of the previous quarter. Compare parallelism 1 with the number of cores
+ * for the speedup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class RecalculateAllBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"1", "4", "8"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private GoogleSheetImpl sheet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool(parallelism);
+        sheet = new GoogleSheetImpl(GoogleSheetSettings.builder()
+                .recalculationPool(pool)
+                .build());
+        final int quarter = size / 4;
+        final Map<String, String> values = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            if (i < quarter) {
+                values.put("C" + i, String.valueOf(i));
+            } else {
+                final int previousQuarter = (i / quarter - 1) * quarter;
+                final int left = previousQuarter + i % quarter;
+                final int right = previousQuarter + (int) ((i * 31L) % quarter);
+                values.put("C" + i, "=C" + left + "+C" + right);
+            }
+        }
+        sheet.putValues(values);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void recalculateAll() {
+        sheet.recalculateAll();
+    }
+}
@@ -0,0 +1,82 @@
+package ru.kmoiseev.archive.googlesheet.benchmark;
+
+import ru.kmoiseev.archive.googlesheet.GoogleSheet;
+
+import java.util.Random;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Sheets of the given number of cells. Every shape has the root cell {@link #ROOT}, whose evaluation
+ * depends on the whole sheet, and the leaf cell {@link #LEAF}, whose change invalidates the root.
+ */
+public enum SheetShape {
+    /**
+     * C1 = C0, C2 = C1, ..., ROOT = C(size - 1).
+     */
+    DEEP_CHAIN {
+        @Override
+        void fill(GoogleSheet sheet, int size) {
+            sheet.putValue(LEAF, "1");
+            for (int i = 1; i < size; i++) {
+                sheet.putValue("C" + i, "=C" + (i - 1));
+            }
+            sheet.putValue(ROOT, "=C" + (size - 1));
+        }
+    },
+    /**
+     * Binary tree of sums over size leaves all referring to C0, and a range sum over the leaves' column.
+     */
+    WIDE_FAN_IN {
+        @Override
+        void fill(GoogleSheet sheet, int size) {
+            sheet.putValue(LEAF, "1");
+            for (int i = 1; i <= size; i++) {
+                sheet.putValue("A" + i, "=" + LEAF);
+                sheet.putValue("T" + (size + i - 1), "=A" + i);
+            }
+            for (int i = size - 1; i > 0; i--) {
+                sheet.putValue("T" + i, "=T" + (2 * i) + "+T" + (2 * i + 1));
+            }
+            sheet.putValue("RANGE", "=SUM(A1:A" + size + ")");
+            sheet.putValue(ROOT, "=T1+RANGE");
+        }
+    },
+    /**
+     * Chain like {@link #DEEP_CHAIN} whose first cell refers to the middle one, so the root is cycled.
+     */
+    CYCLIC {
+        @Override
+        void fill(GoogleSheet sheet, int size) {
+            DEEP_CHAIN.fill(sheet, size);
+            sheet.putValue("C1", "=C" + (size / 2) + "+" + LEAF);
+        }
+    },
+    /**
+     * Every cell is a number or refers to one or two random cells before it, so there are no cycles.
+     */
+    RANDOM {
+        @Override
+        void fill(GoogleSheet sheet, int size) {
+            final Random random = new Random(size);
+            sheet.putValue(LEAF, "1");
+            for (int i = 1; i < size; i++) {
+                final int kind = random.nextInt(4);
+                if (kind == 0) {
+                    sheet.putValue("C" + i, String.valueOf(random.nextInt(1_000)));
+                } else if (kind == 1) {
+                    sheet.putValue("C" + i, "=C" + random.nextInt(i));
+                } else {
+                    sheet.putValue("C" + i, "=C" + random.nextInt(i) + "+C" + random.nextInt(i));
+                }
+            }
+            sheet.putValue(ROOT, "=C" + (size - 1) + "+" + LEAF);
+        }
+    };
+
+    public static final String ROOT = "ROOT";
+    public static final String LEAF = "C0";
+
+    abstract void fill(GoogleSheet sheet, int size);
+}
@@ -0,0 +1,83 @@
+package ru.kmoiseev.archive.shortener.http;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.kmoiseev.archive.shortener.impl.UrlShortenerImpl;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Redirect latency over loopback: 32 keep-alive clients resolving random codes. Sample time mode
+ * reports the percentiles, p0.99 is the one to watch; the load generator shares the box with the server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class HttpRedirectBenchmark {
+
+    @Param({"100000"})
+    public int size;
+
+    @Param({"8"})
+    public int serverThreads;
+
+    private UrlShortenerHttpServer server;
+    private HttpClient client;
+    private HttpRequest[] requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final UrlShortenerImpl urlShortener = new UrlShortenerImpl();
+        server = new UrlShortenerHttpServer(urlShortener,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), false, serverThreads);
+        server.start();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+
+        requests = new HttpRequest[size];
+        for (int i = 0; i < size; i++) {
+            final String shortUrl = urlShortener.shortenUrl("https://i.am.full.url/" + i);
+            requests[i] = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort()
+                    + shortUrl.substring(shortUrl.lastIndexOf('/')))).build();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public int redirect() throws Exception {
+        final HttpRequest request = requests[ThreadLocalRandom.current().nextInt(size)];
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
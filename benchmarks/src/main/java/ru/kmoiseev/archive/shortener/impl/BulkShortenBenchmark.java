@@ -0,0 +1,65 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Shortening of a crawler batch, one url at a time against {@link UrlShortenerImpl#shortenAll(List)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkShortenBenchmark {
+
+    @Param({"10000"})
+    public int batchSize;
+
+    @Param({"false", "true"})
+    public boolean deduplicate;
+
+    private UrlShortenerImpl urlShortener;
+    private List<String> batch;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        urlShortener = new UrlShortenerImpl(UrlShortenerSettings.builder().deduplicate(deduplicate).build());
+        batch = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            batch.add("https://i.am.full.url/" + i);
+        }
+    }
+
+    @Benchmark
+    public Object oneByOne() {
+        final List<String> shortUrls = new ArrayList<>(batch.size());
+        for (String fullUrl : batch) {
+            shortUrls.add(urlShortener.shortenUrl(fullUrl));
+        }
+        return shortUrls;
+    }
+
+    @Benchmark
+    public Object shortenAll() {
+        return urlShortener.shortenAll(batch);
+    }
+}
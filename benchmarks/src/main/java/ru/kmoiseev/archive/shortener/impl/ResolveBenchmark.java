@@ -0,0 +1,65 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Resolving of kept short urls, whole and as a slice of a request line. Run with the GC profiler,
+ * {@code java -jar benchmarks.jar ResolveBenchmark -prof gc}: gc.alloc.rate.norm must be 0 bytes per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResolveBenchmark {
+    private static final String PREFIX = "https://mois-shortener.ru/";
+
+    @Param({"65536"})
+    public int size;
+
+    private UrlShortenerImpl urlShortener;
+    private String[] shortUrls;
+    private StringBuilder[] requestLines;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        urlShortener = new UrlShortenerImpl();
+        shortUrls = new String[size];
+        requestLines = new StringBuilder[size];
+        for (int i = 0; i < size; i++) {
+            shortUrls[i] = urlShortener.shortenUrl("https://i.am.full.url/" + i);
+            requestLines[i] = new StringBuilder("GET /").append(shortUrls[i].substring(PREFIX.length()));
+        }
+    }
+
+    @Benchmark
+    public String resolveShortUrl() {
+        next = (next + 1) & (size - 1);
+        return urlShortener.resolveShortenedUrl(shortUrls[next]);
+    }
+
+    @Benchmark
+    public String resolveRequestLine() {
+        next = (next + 1) & (size - 1);
+        final StringBuilder requestLine = requestLines[next];
+        return urlShortener.resolveShortenedUrl(requestLine, 5, requestLine.length());
+    }
+}
@@ -0,0 +1,47 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Id generation throughput; block size 1 is the shared counter alone. Run with -t 1, -t 8, ..., -t 64
+ * to see the scaling over threads. In the package of the generator to reach its package private method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortUrlGeneratorBenchmark {
+
+    @Param({"1", "64", "1024"})
+    public int blockSize;
+
+    private ShortUrlGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = new ShortUrlGenerator(blockSize);
+    }
+
+    @Benchmark
+    public long generateNext() {
+        return generator.generateNext();
+    }
+}
@@ -0,0 +1,63 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Read heavy keeper throughput: 99 retrieves of random kept ids per keep of a new one, on all cores,
+ * for both the heap and the off-heap keeper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class ShortUrlKeeperBenchmark {
+    private static final String FULL_URL = "https://i.am.full.url";
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean offHeap;
+
+    private ShortUrlKeeper keeper;
+    private ShortUrlGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keeper = offHeap ? new OffHeapShortUrlKeeper() : new HeapShortUrlKeeper();
+        generator = new ShortUrlGenerator();
+        for (int i = 0; i < size; i++) {
+            keeper.keep(generator.generateNext(), FULL_URL);
+        }
+    }
+
+    @Benchmark
+    public Object readHeavy() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(100) == 0) {
+            return keeper.keep(generator.generateNext(), FULL_URL);
+        }
+        return keeper.retrieve(1 + random.nextInt(size));
+    }
+}
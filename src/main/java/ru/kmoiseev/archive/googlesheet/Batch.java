@@ -0,0 +1,28 @@
+package ru.kmoiseev.archive.googlesheet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Collects values to be put into the sheet together on commit, see {@link GoogleSheet#putValues(Map)}.
+ */
+public class Batch {
+    private final GoogleSheet googleSheet;
+    private final Map<String, String> values = new LinkedHashMap<>();
+
+    public Batch(GoogleSheet googleSheet) {
+        this.googleSheet = googleSheet;
+    }
+
+    public Batch putValue(String address, String value) {
+        values.put(address, value);
+        return this;
+    }
+
+    public boolean commit() {
+        return googleSheet.putValues(values);
+    }
+}
@@ -1,5 +1,8 @@
 package ru.kmoiseev.archive.googlesheet;
 
+import java.util.Map;
+import java.util.function.Consumer;
+
 /**
  * @author konstantinmoiseev
  * @since 25.01.2022
@@ -8,8 +11,24 @@ package ru.kmoiseev.archive.googlesheet;
  * 1) Just a number, "-23"
  * 2) Sum of two cells, "=A1+A3"
  * 3) Reference to another cell, "=A4"
+ * 4) SUM, MIN, MAX or COUNT of a rectangle of A1-style cells, "=SUM(A1:B100)"
+ *
+ * Cells in a cycle, and cells whose value does not fit a long, evaluate to null.
+ *
+ * Batch put is all or nothing: if any of the values cannot be put, none of them is.
+ *
+ * Subscribed listener is called with the new evaluated value of the cell after a put changes it,
+ * null meaning the cell cannot be evaluated.
  */
 public interface GoogleSheet {
     boolean putValue(String address, String value);
+    boolean putValues(Map<String, String> valuesByAddress);
     Long evaluate(String address);
+    Subscription subscribe(String address, Consumer<Long> listener);
+
+    default Batch beginBatch() {
+        return new Batch(this);
+    }
+
+    default void shutdown() {}
 }
@@ -0,0 +1,9 @@
+package ru.kmoiseev.archive.googlesheet;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+public interface Subscription {
+    void cancel();
+}
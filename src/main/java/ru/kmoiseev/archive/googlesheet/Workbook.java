@@ -0,0 +1,30 @@
+package ru.kmoiseev.archive.googlesheet;
+
+import java.util.Map;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Named sheets whose cells may refer to cells of other sheets, "=Sheet2!A1" or "=A1+Sheet2!B1".
+ * Sheet name is 1 to 256 latin letters or digits. Sheets may refer to each other, but a put making a cycle
+ * of cells through several sheets is rejected: once "Sheet1!A1" is "=Sheet2!B1", "Sheet2!C1" may be "=Sheet1!D1",
+ * while "Sheet2!B1" cannot be "=Sheet1!A1". Cycles within a sheet evaluate to null. Ranges are within a sheet.
+ */
+public interface Workbook {
+    /**
+     * @return the new sheet, or null if the name is invalid or taken
+     */
+    GoogleSheet addSheet(String name);
+
+    GoogleSheet getSheet(String name);
+
+    /**
+     * Puts the values of every sheet, sheets in parallel; each sheet's values are put all or nothing.
+     *
+     * @return true if values of all the sheets are put
+     */
+    boolean putValues(Map<String, Map<String, String>> valuesBySheet);
+
+    default void shutdown() {}
+}
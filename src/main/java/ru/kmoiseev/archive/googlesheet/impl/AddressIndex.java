@@ -0,0 +1,45 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Interns cell addresses into dense int ids starting from 0. A1-style addresses also get their column and row
+ * decoded once, on interning, see {@link CellCoordinates}.
+ */
+public interface AddressIndex {
+    int ABSENT = -1;
+
+    int find(String address);
+    int intern(String address);
+    String addressOf(int id);
+
+    /**
+     * Column and row of the address, {@link CellCoordinates#NONE} if it is not A1-style.
+     */
+    long coordinatesOf(int id);
+
+    int size();
+
+    /**
+     * Largest column of the A1-style addresses interned, 0 if none.
+     */
+    int getMaxColumn();
+
+    /**
+     * Largest row of the A1-style addresses interned, 0 if none.
+     */
+    int getMaxRow();
+
+    /**
+     * After that the ids below the size can be looked up from different threads.
+     */
+    default void prepareConcurrentReads() {}
+
+    /**
+     * Makes the addresses interned so far durable, if they are persisted at all.
+     */
+    default void force() {}
+
+    default void close() {}
+}
@@ -0,0 +1,33 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Cells data is kept in fixed size blocks of primitive arrays indexed by cell id,
+ * so growing a sheet never copies what is already stored.
+ */
+final class Blocks {
+    static final int BLOCK_BITS = 12;
+    static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private Blocks() {
+    }
+
+    static int block(int id) {
+        return id >>> BLOCK_BITS;
+    }
+
+    static int offset(int id) {
+        return id & BLOCK_MASK;
+    }
+
+    static int capacityFor(int blocksCount, int block) {
+        int capacity = Math.max(blocksCount, 1);
+        while (capacity <= block) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,18 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import lombok.Value;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Counters of the evaluated values cache: reads answered from the cache, reads that had to calculate,
+ * evicted values and values currently kept, which is {@link ValuesCache#UNBOUNDED} for an unbounded cache.
+ */
+@Value
+public class CacheStats {
+    long hits;
+    long misses;
+    long evictions;
+    int size;
+}
@@ -0,0 +1,65 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Column and row of A1-style addresses: upper case column letters ("A" is 1, "Z" is 26, "AA" is 27)
+ * followed by the row number without leading zeros. Both are packed into one long, 0 means not an A1 address.
+ */
+public final class CellCoordinates {
+    public static final long NONE = 0L;
+    public static final int MAX_ROW = (1 << 30) - 1;
+    private static final int MAX_COLUMN_LETTERS = 6;
+
+    private CellCoordinates() {
+    }
+
+    public static long decode(CharSequence address, int from, int to) {
+        int i = from;
+        int column = 0;
+        while (i < to && i - from < MAX_COLUMN_LETTERS && address.charAt(i) >= 'A' && address.charAt(i) <= 'Z') {
+            column = column * 26 + (address.charAt(i) - 'A' + 1);
+            i++;
+        }
+        if (i == from || i == to || address.charAt(i) == '0') {
+            return NONE;
+        }
+
+        long row = 0;
+        for (; i < to; i++) {
+            final char c = address.charAt(i);
+            if (c < '0' || c > '9') {
+                return NONE;
+            }
+            row = row * 10 + (c - '0');
+            if (row > MAX_ROW) {
+                return NONE;
+            }
+        }
+        return pack(column, (int) row);
+    }
+
+    public static long decode(String address) {
+        return decode(address, 0, address.length());
+    }
+
+    public static void appendColumnName(int column, StringBuilder out) {
+        final int start = out.length();
+        for (int rest = column; rest > 0; rest = (rest - 1) / 26) {
+            out.insert(start, (char) ('A' + (rest - 1) % 26));
+        }
+    }
+
+    public static long pack(int column, int row) {
+        return ((long) column << 32) | row;
+    }
+
+    public static int column(long coordinates) {
+        return (int) (coordinates >>> 32);
+    }
+
+    public static int row(long coordinates) {
+        return (int) coordinates;
+    }
+}
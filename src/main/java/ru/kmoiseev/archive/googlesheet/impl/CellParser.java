@@ -0,0 +1,150 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import ru.kmoiseev.archive.googlesheet.impl.expression.AggregateFunction;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Constant;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Expression;
+import ru.kmoiseev.archive.googlesheet.impl.expression.RangeAggregate;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Reference;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Sum;
+
+import static java.util.Objects.isNull;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Supportable values:
+ * 1) Number of up to 19 digits fitting into long, "-23"
+ * 2) Reference to another cell, "=A4"
+ * 3) Sum of two cells, "=A1+A3"
+ * 4) Aggregate of a rectangle of A1-style cells, "=SUM(A1:B100)", "=MIN(...)", "=MAX(...)", "=COUNT(...)"
+ * Address is 1 to 256 latin letters or digits. Only in a workbook a referenced one may be qualified
+ * by a sheet name, "=Sheet2!A1", see {@link #parse(String, boolean)}.
+ */
+public class CellParser {
+    private static final int MAX_NUMBER_DIGITS = 19;
+    private static final int MAX_ADDRESS_LENGTH = 256;
+
+    public static Expression parse(String value) {
+        return parse(value, false);
+    }
+
+    /**
+     * @param qualifiedReferences whether referenced addresses may be qualified by a sheet name
+     */
+    public static Expression parse(String value, boolean qualifiedReferences) {
+        if (isNull(value) || value.isEmpty()) {
+            return null;
+        }
+
+        if (value.charAt(0) != '=') {
+            return parseNumber(value);
+        }
+
+        final int addressEnd = referenceEnd(value, 1, qualifiedReferences);
+        if (addressEnd == 1) {
+            return null;
+        }
+
+        if (addressEnd == value.length()) {
+            return new Reference(value.substring(1));
+        }
+
+        if (value.charAt(addressEnd) == '(') {
+            return parseRangeAggregate(value, addressEnd);
+        }
+
+        if (value.charAt(addressEnd) != '+') {
+            return null;
+        }
+
+        final int rightAddressEnd = referenceEnd(value, addressEnd + 1, qualifiedReferences);
+        if (rightAddressEnd == addressEnd + 1 || rightAddressEnd != value.length()) {
+            return null;
+        }
+
+        return new Sum(value.substring(1, addressEnd), value.substring(addressEnd + 1));
+    }
+
+    private static Expression parseNumber(String value) {
+        final int digitsStart = value.charAt(0) == '-' ? 1 : 0;
+        final int digitsCount = value.length() - digitsStart;
+        if (digitsCount == 0 || digitsCount > MAX_NUMBER_DIGITS) {
+            return null;
+        }
+
+        for (int i = digitsStart; i < value.length(); i++) {
+            if (!isDigit(value.charAt(i))) {
+                return null;
+            }
+        }
+
+        try {
+            return new Constant(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Expression parseRangeAggregate(String value, int openingBracket) {
+        final AggregateFunction function = aggregateFunction(value.substring(1, openingBracket));
+        if (function == null || value.charAt(value.length() - 1) != ')') {
+            return null;
+        }
+
+        final int closingBracket = value.length() - 1;
+        final int colon = value.indexOf(':', openingBracket);
+        if (colon < 0 || colon > closingBracket) {
+            return null;
+        }
+
+        final long from = CellCoordinates.decode(value, openingBracket + 1, colon);
+        final long to = CellCoordinates.decode(value, colon + 1, closingBracket);
+        if (from == CellCoordinates.NONE || to == CellCoordinates.NONE) {
+            return null;
+        }
+
+        return new RangeAggregate(function,
+                Math.min(CellCoordinates.column(from), CellCoordinates.column(to)),
+                Math.min(CellCoordinates.row(from), CellCoordinates.row(to)),
+                Math.max(CellCoordinates.column(from), CellCoordinates.column(to)),
+                Math.max(CellCoordinates.row(from), CellCoordinates.row(to)));
+    }
+
+    private static AggregateFunction aggregateFunction(String name) {
+        for (AggregateFunction function : AggregateFunction.values()) {
+            if (function.name().equals(name)) {
+                return function;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * End of the address, with the sheet name if qualified; from when there is no valid one.
+     */
+    private static int referenceEnd(String value, int from, boolean qualified) {
+        final int end = addressEnd(value, from);
+        if (!qualified || end == from || end == value.length() || value.charAt(end) != '!') {
+            return end;
+        }
+        final int qualifiedEnd = addressEnd(value, end + 1);
+        return qualifiedEnd == end + 1 ? from : qualifiedEnd;
+    }
+
+    private static int addressEnd(String value, int from) {
+        int i = from;
+        while (i < value.length() && i - from < MAX_ADDRESS_LENGTH && isAddressChar(value.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isAddressChar(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,25 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Fixed size cell records by cell id: a type code and a long payload.
+ */
+public interface CellSlots {
+    byte getType(int id);
+    long getPayload(int id);
+    void set(int id, byte type, long payload);
+
+    /**
+     * After that the records of ids below the size can be read from different threads.
+     */
+    default void prepareConcurrentReads(int size) {}
+
+    /**
+     * Makes the records set so far durable, if they are persisted at all.
+     */
+    default void force() {}
+
+    default void close() {}
+}
@@ -1,37 +1,27 @@
 package ru.kmoiseev.archive.googlesheet.impl;
 
-import lombok.experimental.FieldDefaults;
-
-import java.util.Arrays;
-import java.util.List;
-import java.util.regex.Pattern;
-
-import static lombok.AccessLevel.PRIVATE;
-
 /**
  * @author konstantinmoiseev
  * @since 25.01.2022
+ *
+ * {@link #UNDEFINED} is a cell put without a value, a workbook's mirror of a cell evaluating to null;
+ * it evaluates to null like a cycle, and so do the cells referring to it.
  */
-@FieldDefaults(makeFinal = true, level = PRIVATE)
 public enum CellType {
-    NUMBER("^-?\\d{1,19}$"),
-    REFERENCE("^\\=[a-zA-Z0-9]{1,256}$"),
-    SUM("^\\=[a-zA-Z0-9]{1,256}\\+[a-zA-Z0-9]{1,256}$");
+    EMPTY,
+    NUMBER,
+    REFERENCE,
+    SUM,
+    RANGE,
+    UNDEFINED;
 
-    private final static List<CellType> allTypes = Arrays.asList(CellType.values());
-    Pattern validationRegexp;
+    private static final CellType[] allTypes = values();
 
-    CellType(String regexpPattern) {
-        this.validationRegexp = Pattern.compile(regexpPattern);
+    static CellType of(byte code) {
+        return allTypes[code];
     }
 
-    public static CellType getCellType(String value) {
-        if (value == null) {
-            return null;
-        }
-        return allTypes.stream()
-                .filter(cellType -> cellType.validationRegexp.matcher(value).matches())
-                .findFirst()
-                .orElse(null);
+    byte code() {
+        return (byte) ordinal();
     }
 }
@@ -1,22 +1,216 @@
 package ru.kmoiseev.archive.googlesheet.impl;
 
-import lombok.Value;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Constant;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Expression;
+import ru.kmoiseev.archive.googlesheet.impl.expression.RangeAggregate;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Reference;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Sum;
 
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.function.IntConsumer;
 
 /**
  * @author konstantinmoiseev
  * @since 25.01.2022
+ *
+ * Every address met in the sheet, either put or referenced, gets a dense id.
+ * A cell is stored as a type code and a single long payload:
+ * the number itself, the referenced id, or both summed ids packed as high and low halves.
+ * Range aggregates are few, so they are kept as they are in a separate map.
  */
-@Value
 public class CellsStorage {
-    Map<String,String> cells;
+    private final Map<Integer, RangeAggregate> ranges = new HashMap<>();
+    private final AddressIndex addressIndex;
+    private final CellSlots slots;
+    private final ChangeLog changeLog;
 
-    public void put(String address, String value) {
-        cells.put(address, value);
+    public CellsStorage() {
+        this(new HeapAddressIndex(), new HeapCellSlots(), null);
     }
 
-    public String get(String address) {
-        return cells.get(address);
+    private CellsStorage(AddressIndex addressIndex, CellSlots slots, ChangeLog changeLog) {
+        this.addressIndex = addressIndex;
+        this.slots = slots;
+        this.changeLog = changeLog;
+    }
+
+    /**
+     * Storage persisted in the directory: addresses and cell records are memory mapped as they are,
+     * see {@link MappedAddressIndex} and {@link MappedCellSlots}, so only the ranges are read up front,
+     * replayed from "changes.log". A log holding more than the ranges of the range cells is compacted.
+     * Nothing is durable before {@link #force()} or {@link #close()}: a crash of the process loses nothing,
+     * a crash of the OS may lose what was written since.
+     */
+    public static CellsStorage open(Path directory) {
+        final ChangeLog changeLog = new ChangeLog(directory.resolve("changes.log"));
+        final CellsStorage cellsStorage = new CellsStorage(new MappedAddressIndex(directory),
+                new MappedCellSlots(directory.resolve("cells.dat")), changeLog);
+        final int records = changeLog.replay(new ChangeLog.Replay() {
+            @Override
+            public void address(int id, String address) {
+                cellsStorage.addressIndex.intern(address);
+            }
+
+            @Override
+            public void range(int id, RangeAggregate range) {
+                cellsStorage.ranges.put(id, range);
+            }
+        });
+        cellsStorage.ranges.keySet().removeIf(id -> cellsStorage.getType(id) != CellType.RANGE);
+        if (records > cellsStorage.ranges.size()) {
+            cellsStorage.addressIndex.force();
+            changeLog.compact(cellsStorage.ranges);
+        }
+        return cellsStorage;
+    }
+
+    /**
+     * Makes the cells put so far durable, if they are persisted at all.
+     */
+    public void force() {
+        addressIndex.force();
+        if (changeLog != null) {
+            changeLog.force();
+        }
+        slots.force();
+    }
+
+    public void close() {
+        addressIndex.close();
+        if (changeLog != null) {
+            changeLog.close();
+        }
+        slots.close();
+    }
+
+    public int idOf(String address) {
+        return addressIndex.intern(address);
+    }
+
+    /**
+     * Largest column of the A1-style addresses met, 0 if none.
+     */
+    public int getMaxColumn() {
+        return addressIndex.getMaxColumn();
+    }
+
+    /**
+     * Largest row of the A1-style addresses met, 0 if none.
+     */
+    public int getMaxRow() {
+        return addressIndex.getMaxRow();
+    }
+
+    public void prepareConcurrentReads() {
+        addressIndex.prepareConcurrentReads();
+        slots.prepareConcurrentReads(size());
+    }
+
+    public int find(String address) {
+        return addressIndex.find(address);
+    }
+
+    public String addressOf(int id) {
+        return addressIndex.addressOf(id);
+    }
+
+    public int size() {
+        return addressIndex.size();
+    }
+
+    public void put(int id, Expression expression) {
+        switch (expression.getType()) {
+            case NUMBER:
+                put(id, CellType.NUMBER, ((Constant) expression).getValue());
+                return;
+            case REFERENCE:
+                put(id, CellType.REFERENCE, idOf(((Reference) expression).getAddress()));
+                return;
+            case SUM: {
+                final Sum sum = (Sum) expression;
+                put(id, CellType.SUM, pack(idOf(sum.getLeftAddress()), idOf(sum.getRightAddress())));
+                return;
+            }
+            case RANGE:
+                if (changeLog != null) {
+                    changeLog.appendRange(id, (RangeAggregate) expression);
+                }
+                put(id, CellType.RANGE, 0L);
+                ranges.put(id, (RangeAggregate) expression);
+                return;
+            default:
+                throw new IllegalArgumentException("Unsupported expression " + expression.getType());
+        }
+    }
+
+    public void clear(int id) {
+        put(id, CellType.EMPTY, 0L);
+    }
+
+    public void putUndefined(int id) {
+        put(id, CellType.UNDEFINED, 0L);
+    }
+
+    public CellType getType(int id) {
+        return CellType.of(slots.getType(id));
+    }
+
+    public long getNumber(int id) {
+        return slots.getPayload(id);
+    }
+
+    public int getReference(int id) {
+        return (int) slots.getPayload(id);
+    }
+
+    public int getLeft(int id) {
+        return (int) (slots.getPayload(id) >>> 32);
+    }
+
+    public int getRight(int id) {
+        return (int) slots.getPayload(id);
+    }
+
+    public RangeAggregate getRange(int id) {
+        return ranges.get(id);
+    }
+
+    public long getCoordinates(int id) {
+        return addressIndex.coordinatesOf(id);
+    }
+
+    /**
+     * Gives the ids of the range cells.
+     */
+    public void forEachRange(IntConsumer consumer) {
+        for (int id : ranges.keySet()) {
+            consumer.accept(id);
+        }
+    }
+
+    public void forEachReference(int id, IntConsumer consumer) {
+        switch (getType(id)) {
+            case REFERENCE:
+                consumer.accept(getReference(id));
+                return;
+            case SUM:
+                consumer.accept(getLeft(id));
+                consumer.accept(getRight(id));
+                return;
+            default:
+        }
+    }
+
+    private void put(int id, CellType type, long payload) {
+        if (getType(id) == CellType.RANGE) {
+            ranges.remove(id);
+        }
+        slots.set(id, type.code(), payload);
+    }
+
+    private static long pack(int left, int right) {
+        return ((long) left << 32) | (right & 0xFFFFFFFFL);
     }
 }
@@ -0,0 +1,152 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import lombok.SneakyThrows;
+import ru.kmoiseev.archive.googlesheet.impl.expression.AggregateFunction;
+import ru.kmoiseev.archive.googlesheet.impl.expression.RangeAggregate;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Append-only log of range aggregates, which do not fit into a fixed size cell record.
+ * Records:
+ * 1) address: 'A', id, UTF-8 length, UTF-8 bytes, only read from logs written before addresses were mapped,
+ * see {@link MappedAddressIndex}
+ * 2) range: 'R', id, function, from column, from row, to column, to row
+ * A record torn by a crash is dropped on replay.
+ *
+ * Records are written straight to the file and forced on {@link #force()} and {@link #close()}.
+ * The log is replayed whole on open, and rewritten with just the given ranges by {@link #compact},
+ * so it holds a record per range cell plus the ranges put since the last compaction.
+ */
+public class ChangeLog {
+    private static final byte ADDRESS = 'A';
+    private static final byte RANGE = 'R';
+    private static final int RANGE_RECORD_SIZE = 1 + 4 + 1 + 4 * 4;
+    private static final AggregateFunction[] functions = AggregateFunction.values();
+
+    private final Path file;
+    private FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+    public interface Replay {
+        void address(int id, String address);
+        void range(int id, RangeAggregate range);
+    }
+
+    @SneakyThrows
+    public ChangeLog(Path file) {
+        this.file = file;
+        this.channel = FileChannel.open(file, CREATE, READ, WRITE);
+    }
+
+    /**
+     * @return count of the records replayed
+     */
+    @SneakyThrows
+    public int replay(Replay replay) {
+        final MappedByteBuffer log = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        int position = 0;
+        int records = 0;
+        while (position < log.limit()) {
+            final byte recordType = log.get(position);
+            if (recordType == ADDRESS && position + 9 <= log.limit()) {
+                final int length = log.getInt(position + 5);
+                if (position + 9 + length > log.limit()) {
+                    break;
+                }
+                final byte[] bytes = new byte[length];
+                log.position(position + 9);
+                log.get(bytes);
+                replay.address(log.getInt(position + 1), new String(bytes, StandardCharsets.UTF_8));
+                position += 9 + length;
+                records++;
+            } else if (recordType == RANGE && position + RANGE_RECORD_SIZE <= log.limit()) {
+                replay.range(log.getInt(position + 1), new RangeAggregate(
+                        functions[log.get(position + 5)],
+                        log.getInt(position + 6),
+                        log.getInt(position + 10),
+                        log.getInt(position + 14),
+                        log.getInt(position + 18)));
+                position += RANGE_RECORD_SIZE;
+                records++;
+            } else {
+                break;
+            }
+        }
+        channel.truncate(position);
+        channel.position(position);
+        return records;
+    }
+
+    public void appendRange(int id, RangeAggregate range) {
+        putRange(id, range);
+        write(buffer);
+    }
+
+    private void putRange(int id, RangeAggregate range) {
+        buffer.clear();
+        buffer.put(RANGE).putInt(id).put((byte) range.getFunction().ordinal())
+                .putInt(range.getFromColumn()).putInt(range.getFromRow())
+                .putInt(range.getToColumn()).putInt(range.getToRow());
+    }
+
+    /**
+     * Replaces the log with one holding just the ranges: the new log is written and forced aside,
+     * then renamed over the old one, so a crash leaves either of them complete.
+     */
+    @SneakyThrows
+    public void compact(Map<Integer, RangeAggregate> ranges) {
+        final Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel compactedChannel = FileChannel.open(compacted, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            for (Map.Entry<Integer, RangeAggregate> idAndRange : ranges.entrySet()) {
+                putRange(idAndRange.getKey(), idAndRange.getValue());
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    compactedChannel.write(buffer);
+                }
+            }
+            compactedChannel.force(true);
+        }
+        channel.close();
+        Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        try (FileChannel directoryChannel = FileChannel.open(file.toAbsolutePath().getParent(), READ)) {
+            directoryChannel.force(true);
+        }
+        channel = FileChannel.open(file, READ, WRITE);
+        channel.position(channel.size());
+    }
+
+    @SneakyThrows
+    public void force() {
+        channel.force(true);
+    }
+
+    @SneakyThrows
+    public void close() {
+        channel.force(true);
+        channel.close();
+    }
+
+    @SneakyThrows
+    private void write(ByteBuffer record) {
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+}
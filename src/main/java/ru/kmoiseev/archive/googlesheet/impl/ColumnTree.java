@@ -0,0 +1,270 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import ru.kmoiseev.archive.googlesheet.impl.expression.AggregateFunction;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Segment tree over the rows of one column, its nodes allocated only on the paths to the rows present,
+ * so memory follows the number of cells rather than the largest row. Every node keeps sum, min and max of
+ * the evaluated values below it and counts of the non-empty, dirty, cycled and overflowed cells, so both
+ * a row update and an aggregate over a row range are O(log {@link CellCoordinates#MAX_ROW}).
+ * Dirty cells do not take part in the values until they are evaluated.
+ * Sums are 128 bit, kept as high and low longs, so a sum not fitting a long is detected rather than wrapped.
+ */
+class ColumnTree {
+    private static final int HEIGHT = 30;
+    private static final int LAST_ROW = (1 << HEIGHT) - 1;
+    private static final int NO_NODE = 0;
+    private static final int ROOT = 1;
+
+    private int size = 2;
+    private int[] lefts = new int[64];
+    private int[] rights = new int[64];
+    private int[] ids = new int[64];
+    private long[] sums = new long[64];
+    private long[] sumHighs = new long[64];
+    private long[] mins = newMins(64);
+    private long[] maxs = newMaxs(64);
+    private int[] counts = new int[64];
+    private int[] dirties = new int[64];
+    private int[] cycles = new int[64];
+    private int[] overflows = new int[64];
+    private final int[] path = new int[HEIGHT];
+
+    synchronized void setDirty(int row, int id) {
+        final int leaf = leafOf(row);
+        ids[leaf] = id;
+        setLeaf(leaf, 0L, Long.MAX_VALUE, Long.MIN_VALUE, 1, 1, 0, 0);
+    }
+
+    synchronized void setValue(int row, long value) {
+        setLeaf(leafOf(row), value, value, value, 1, 0, 0, 0);
+    }
+
+    synchronized void setCycled(int row) {
+        setLeaf(leafOf(row), 0L, Long.MAX_VALUE, Long.MIN_VALUE, 1, 0, 1, 0);
+    }
+
+    synchronized void setOverflowed(int row) {
+        setLeaf(leafOf(row), 0L, Long.MAX_VALUE, Long.MIN_VALUE, 1, 0, 0, 1);
+    }
+
+    synchronized void setEmpty(int row) {
+        setLeaf(leafOf(row), 0L, Long.MAX_VALUE, Long.MIN_VALUE, 0, 0, 0, 0);
+    }
+
+    /**
+     * Adds the evaluated cells within the rows to the accumulator.
+     */
+    void aggregate(int fromRow, int toRow, Accumulator accumulator) {
+        aggregate(ROOT, 0, LAST_ROW, fromRow, toRow, accumulator);
+    }
+
+    private void aggregate(int node, int nodeFrom, int nodeTo, int fromRow, int toRow, Accumulator accumulator) {
+        if (node == NO_NODE || nodeTo < fromRow || nodeFrom > toRow) {
+            return;
+        }
+        if (fromRow <= nodeFrom && nodeTo <= toRow) {
+            accumulator.add(sums[node], sumHighs[node], mins[node], maxs[node], counts[node]);
+            return;
+        }
+        final int middle = (nodeFrom + nodeTo) >>> 1;
+        aggregate(lefts[node], nodeFrom, middle, fromRow, toRow, accumulator);
+        aggregate(rights[node], middle + 1, nodeTo, fromRow, toRow, accumulator);
+    }
+
+    int countCycled(int fromRow, int toRow) {
+        return count(cycles, ROOT, 0, LAST_ROW, fromRow, toRow);
+    }
+
+    int countOverflowed(int fromRow, int toRow) {
+        return count(overflows, ROOT, 0, LAST_ROW, fromRow, toRow);
+    }
+
+    private int count(int[] counters, int node, int nodeFrom, int nodeTo, int fromRow, int toRow) {
+        if (counters[node] == 0 || nodeTo < fromRow || nodeFrom > toRow) {
+            return 0;
+        }
+        if (fromRow <= nodeFrom && nodeTo <= toRow) {
+            return counters[node];
+        }
+        final int middle = (nodeFrom + nodeTo) >>> 1;
+        return count(counters, lefts[node], nodeFrom, middle, fromRow, toRow)
+                + count(counters, rights[node], middle + 1, nodeTo, fromRow, toRow);
+    }
+
+    /**
+     * Pushes ids of the dirty cells within the rows, descending only into subtrees having any.
+     */
+    void collectDirty(int fromRow, int toRow, IntStack out) {
+        collect(dirties, ROOT, 0, LAST_ROW, fromRow, toRow, out);
+    }
+
+    void collectOverflowed(int fromRow, int toRow, IntStack out) {
+        collect(overflows, ROOT, 0, LAST_ROW, fromRow, toRow, out);
+    }
+
+    private void collect(int[] counters, int node, int nodeFrom, int nodeTo, int fromRow, int toRow, IntStack out) {
+        if (counters[node] == 0 || nodeTo < fromRow || nodeFrom > toRow) {
+            return;
+        }
+        if (nodeFrom == nodeTo) {
+            out.push(ids[node]);
+            return;
+        }
+        final int middle = (nodeFrom + nodeTo) >>> 1;
+        collect(counters, lefts[node], nodeFrom, middle, fromRow, toRow, out);
+        collect(counters, rights[node], middle + 1, nodeTo, fromRow, toRow, out);
+    }
+
+    /**
+     * Leaf of the row, creating the missing nodes on the way; the nodes passed are left in {@link #path}.
+     */
+    private int leafOf(int row) {
+        int node = ROOT;
+        for (int level = HEIGHT - 1; level >= 0; level--) {
+            path[level] = node;
+            final boolean right = (row >>> level & 1) == 1;
+            int child = right ? rights[node] : lefts[node];
+            if (child == NO_NODE) {
+                child = newNode();
+                if (right) {
+                    rights[node] = child;
+                } else {
+                    lefts[node] = child;
+                }
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private void setLeaf(int leaf, long sum, long min, long max, int count, int dirty, int cycled, int overflowed) {
+        sums[leaf] = sum;
+        sumHighs[leaf] = sum >> 63;
+        mins[leaf] = min;
+        maxs[leaf] = max;
+        counts[leaf] = count;
+        dirties[leaf] = dirty;
+        cycles[leaf] = cycled;
+        overflows[leaf] = overflowed;
+        for (int level = 0; level < HEIGHT; level++) {
+            combine(path[level]);
+        }
+    }
+
+    private void combine(int node) {
+        final int left = lefts[node];
+        final int right = rights[node];
+        sums[node] = sums[left] + sums[right];
+        sumHighs[node] = sumHighs[left] + sumHighs[right] + carry(sums[left], sums[node]);
+        mins[node] = Math.min(mins[left], mins[right]);
+        maxs[node] = Math.max(maxs[left], maxs[right]);
+        counts[node] = counts[left] + counts[right];
+        dirties[node] = dirties[left] + dirties[right];
+        cycles[node] = cycles[left] + cycles[right];
+        overflows[node] = overflows[left] + overflows[right];
+    }
+
+    /**
+     * Carry out of the low long addition which gave the sum.
+     */
+    private static long carry(long addend, long sum) {
+        return Long.compareUnsigned(sum, addend) < 0 ? 1L : 0L;
+    }
+
+    private int newNode() {
+        if (size == lefts.length) {
+            final int capacity = size << 1;
+            lefts = Arrays.copyOf(lefts, capacity);
+            rights = Arrays.copyOf(rights, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            sums = Arrays.copyOf(sums, capacity);
+            sumHighs = Arrays.copyOf(sumHighs, capacity);
+            mins = Arrays.copyOf(mins, capacity);
+            maxs = Arrays.copyOf(maxs, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            dirties = Arrays.copyOf(dirties, capacity);
+            cycles = Arrays.copyOf(cycles, capacity);
+            overflows = Arrays.copyOf(overflows, capacity);
+            Arrays.fill(mins, size, capacity, Long.MAX_VALUE);
+            Arrays.fill(maxs, size, capacity, Long.MIN_VALUE);
+        }
+        return size++;
+    }
+
+    private static long[] newMins(int size) {
+        final long[] mins = new long[size];
+        Arrays.fill(mins, Long.MAX_VALUE);
+        return mins;
+    }
+
+    private static long[] newMaxs(int size) {
+        final long[] maxs = new long[size];
+        Arrays.fill(maxs, Long.MIN_VALUE);
+        return maxs;
+    }
+
+    static class Accumulator {
+        private long sum;
+        private long sumHigh;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        private long count;
+
+        private void add(long sum, long sumHigh, long min, long max, int count) {
+            final long lowSum = this.sum + sum;
+            this.sumHigh += sumHigh + carry(sum, lowSum);
+            this.sum = lowSum;
+            this.min = Math.min(this.min, min);
+            this.max = Math.max(this.max, max);
+            this.count += count;
+        }
+
+        /**
+         * Only a SUM may not fit a long.
+         */
+        boolean fits(AggregateFunction function) {
+            return function != AggregateFunction.SUM || sumHigh == sum >> 63;
+        }
+
+        BigInteger exactSum() {
+            return BigInteger.valueOf(sumHigh).shiftLeft(Long.SIZE).add(new BigInteger(Long.toUnsignedString(sum)));
+        }
+
+        long getMin() {
+            return min;
+        }
+
+        long getMax() {
+            return max;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        /**
+         * 0 for MIN and MAX of no cells.
+         */
+        long result(AggregateFunction function) {
+            switch (function) {
+                case SUM:
+                    return sum;
+                case MIN:
+                    return count == 0 ? 0L : min;
+                case MAX:
+                    return count == 0 ? 0L : max;
+                case COUNT:
+                    return count;
+                default:
+                    throw new IllegalArgumentException("Unsupported function " + function);
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import ru.kmoiseev.archive.googlesheet.GoogleSheet;
+import ru.kmoiseev.archive.googlesheet.Subscription;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Expression;
+import ru.kmoiseev.archive.googlesheet.impl.expression.RangeAggregate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Writers are serialized on a lock, put into the underlying sheet, evaluate every invalidated cell
+ * and publish a new immutable {@link SheetSnapshot}. Readers never lock: they evaluate
+ * against the last published snapshot, which is a single read of the already evaluated value.
+ * Subscribers are called by the writer once the snapshot with the changed value is published.
+ */
+public class ConcurrentGoogleSheet implements GoogleSheet {
+
+    private final GoogleSheetImpl googleSheet;
+    private final Lock writeLock = new ReentrantLock();
+    private final IntStack invalidated = new IntStack();
+    private final Map<String, Integer> idsByAddress = new ConcurrentHashMap<>();
+    private volatile SheetSnapshot snapshot = SheetSnapshot.empty(idsByAddress);
+    private final Subscriptions subscriptions = new Subscriptions();
+    private final IntStack changedSubscribed = new IntStack();
+    private final List<Long> changedSubscribedValues = new ArrayList<>();
+
+    public ConcurrentGoogleSheet() {
+        this(GoogleSheetSettings.builder().build());
+    }
+
+    public ConcurrentGoogleSheet(GoogleSheetSettings settings) {
+        this(settings, false);
+    }
+
+    ConcurrentGoogleSheet(GoogleSheetSettings settings, boolean qualifiedReferences) {
+        this.googleSheet = new GoogleSheetImpl(settings, qualifiedReferences);
+        googleSheet.trackInvalidated(invalidated);
+    }
+
+    @Override
+    public boolean putValue(String address, String value) {
+        writeLock.lock();
+        try {
+            if (!googleSheet.putValue(address, value)) {
+                return false;
+            }
+            publish();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean putValues(Map<String, String> valuesByAddress) {
+        writeLock.lock();
+        try {
+            if (!googleSheet.putValues(valuesByAddress)) {
+                return false;
+            }
+            publish();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    boolean clearValue(String address) {
+        writeLock.lock();
+        try {
+            if (!googleSheet.clearValue(address)) {
+                return false;
+            }
+            publish();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void putUndefined(String address) {
+        writeLock.lock();
+        try {
+            googleSheet.putUndefined(address);
+            publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    Expression expressionOf(String address) {
+        writeLock.lock();
+        try {
+            return googleSheet.expressionOf(address);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void forEachCellIn(RangeAggregate range, Consumer<String> consumer) {
+        writeLock.lock();
+        try {
+            googleSheet.forEachCellIn(range, consumer);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Long evaluate(String address) {
+        return snapshot.evaluate(address);
+    }
+
+    @Override
+    public Subscription subscribe(String address, Consumer<Long> listener) {
+        if (!GoogleSheetImpl.checkAddress(address) || listener == null) {
+            return null;
+        }
+
+        writeLock.lock();
+        try {
+            final int id = googleSheet.idOf(address);
+            final Subscription subscription = subscriptions.subscribe(id, googleSheet.evaluate(id), listener);
+            return () -> {
+                writeLock.lock();
+                try {
+                    subscription.cancel();
+                } finally {
+                    writeLock.unlock();
+                }
+            };
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * See {@link GoogleSheetImpl#flush()}.
+     */
+    public void flush() {
+        writeLock.lock();
+        try {
+            googleSheet.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        writeLock.lock();
+        try {
+            googleSheet.shutdown();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public SheetSnapshot snapshot() {
+        return snapshot;
+    }
+
+    private void publish() {
+        final SheetSnapshot current = snapshot;
+        final int size = googleSheet.size();
+        final SheetSnapshot.Builder next = current.toBuilder(size);
+        while (!invalidated.isEmpty()) {
+            final int id = invalidated.pop();
+            final Long value = googleSheet.evaluate(id);
+            next.set(id, value);
+            if (subscriptions.isSubscribed(id)) {
+                changedSubscribed.push(id);
+                changedSubscribedValues.add(value);
+            }
+        }
+        // addresses go first, so a reader of the new snapshot finds every cell of it; older snapshots
+        // treat ids beyond their size as absent
+        for (int id = idsByAddress.size(); id < size; id++) {
+            idsByAddress.put(googleSheet.addressOf(id), id);
+        }
+        snapshot = next.build();
+
+        final int[] changedIds = changedSubscribed.toArray();
+        final Long[] changedValues = changedSubscribedValues.toArray(new Long[0]);
+        changedSubscribed.clear();
+        changedSubscribedValues.clear();
+        for (int i = 0; i < changedIds.length; i++) {
+            subscriptions.changed(changedIds[i], changedValues[i]);
+        }
+    }
+}
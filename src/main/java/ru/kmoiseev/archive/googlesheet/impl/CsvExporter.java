@@ -0,0 +1,158 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import lombok.SneakyThrows;
+import ru.kmoiseev.archive.googlesheet.GoogleSheet;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Streams evaluated values of the A1-style cells as CSV, row by row through a fixed buffer.
+ * Every row has a field per column, positions with no cell and cycled cells are written as empty fields.
+ */
+public class CsvExporter {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_FIELD_SIZE = 21;
+
+    /**
+     * Exports every row and column having an A1-style address in the sheet, evaluating only the cells put,
+     * in the order of their rows and columns.
+     */
+    @SneakyThrows
+    public void exportFrom(GoogleSheetImpl googleSheet, WritableByteChannel channel) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        final int rows = googleSheet.getRowsCount();
+        final int columns = googleSheet.getColumnsCount();
+        int row = 1;
+        int column = 0;
+        for (int id : cellsByPosition(googleSheet)) {
+            final long coordinates = googleSheet.coordinatesOf(id);
+            for (; row < CellCoordinates.row(coordinates); row++, column = 0) {
+                putSeparators(buffer, channel, column, columns);
+                buffer.put((byte) '\n');
+            }
+            putSeparators(buffer, channel, column, CellCoordinates.column(coordinates));
+            column = CellCoordinates.column(coordinates);
+
+            final Long value = googleSheet.evaluate(id);
+            if (value != null) {
+                putNumber(buffer, value);
+            }
+            if (buffer.remaining() < MAX_FIELD_SIZE + 1) {
+                write(buffer, channel);
+            }
+        }
+        for (; row <= rows; row++, column = 0) {
+            putSeparators(buffer, channel, column, columns);
+            buffer.put((byte) '\n');
+        }
+        write(buffer, channel);
+    }
+
+    /**
+     * Exports the rows and columns of any sheet, evaluating every position of them.
+     */
+    @SneakyThrows
+    public void exportFrom(GoogleSheet googleSheet, int rows, int columns, WritableByteChannel channel) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        final StringBuilder address = new StringBuilder();
+
+        for (int row = 1; row <= rows; row++) {
+            for (int column = 1; column <= columns; column++) {
+                address.setLength(0);
+                CellCoordinates.appendColumnName(column, address);
+                address.append(row);
+
+                final Long value = googleSheet.evaluate(address.toString());
+                if (value != null) {
+                    putNumber(buffer, value);
+                }
+                buffer.put(column == columns ? (byte) '\n' : (byte) ',');
+
+                if (buffer.remaining() < MAX_FIELD_SIZE + 1) {
+                    write(buffer, channel);
+                }
+            }
+        }
+        write(buffer, channel);
+    }
+
+    /**
+     * Ids of the non-empty A1-style cells sorted by row, then by column: by row first, as a long of the row
+     * and the id, and then each row by column the same way, so nothing is boxed.
+     */
+    private static int[] cellsByPosition(GoogleSheetImpl googleSheet) {
+        final long[] byRow = new long[googleSheet.size()];
+        int count = 0;
+        for (int id = 0; id < byRow.length; id++) {
+            final long coordinates = googleSheet.coordinatesOf(id);
+            if (coordinates != CellCoordinates.NONE) {
+                byRow[count++] = (long) CellCoordinates.row(coordinates) << Integer.SIZE | id;
+            }
+        }
+        Arrays.sort(byRow, 0, count);
+
+        final long[] byColumn = new long[count];
+        final int[] ids = new int[count];
+        for (int from = 0, to; from < count; from = to) {
+            final long row = byRow[from] >>> Integer.SIZE;
+            for (to = from; to < count && byRow[to] >>> Integer.SIZE == row; to++) {
+                final int id = (int) byRow[to];
+                byColumn[to] = (long) CellCoordinates.column(googleSheet.coordinatesOf(id)) << Integer.SIZE | id;
+            }
+            Arrays.sort(byColumn, from, to);
+            for (int i = from; i < to; i++) {
+                ids[i] = (int) byColumn[i];
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Separators of the empty fields after the column up to the target column, which is written next.
+     */
+    private static void putSeparators(ByteBuffer buffer, WritableByteChannel channel, int column, int target) {
+        for (int next = Math.max(column, 1); next < target; next++) {
+            if (!buffer.hasRemaining()) {
+                write(buffer, channel);
+            }
+            buffer.put((byte) ',');
+        }
+        if (buffer.remaining() < MAX_FIELD_SIZE + 1) {
+            write(buffer, channel);
+        }
+    }
+
+    private static void putNumber(ByteBuffer buffer, long value) {
+        if (value == 0) {
+            buffer.put((byte) '0');
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+        }
+
+        final int start = buffer.position();
+        for (long rest = value; rest != 0; rest /= 10) {
+            buffer.put((byte) ('0' + Math.abs(rest % 10)));
+        }
+        for (int left = start, right = buffer.position() - 1; left < right; left++, right--) {
+            final byte digit = buffer.get(left);
+            buffer.put(left, buffer.get(right));
+            buffer.put(right, digit);
+        }
+    }
+
+    @SneakyThrows
+    private static void write(ByteBuffer buffer, WritableByteChannel channel) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,126 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import lombok.SneakyThrows;
+import ru.kmoiseev.archive.googlesheet.GoogleSheet;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Streams CSV into a sheet: the field in row N and column M goes to the A1-style address of that cell
+ * (third field of the second line is "C2"), empty fields are skipped. Fields are ASCII and may be quoted,
+ * with "" inside quotes standing for a quote. A byte outside ASCII, text after a closing quote or a quote left open
+ * make the CSV malformed, which stops the import as an invalid value does. The channel is read through a fixed
+ * buffer and cells are put by batches of a fixed size, so memory does not depend on the file size.
+ * Each batch is all or nothing, batches before an invalid one stay put.
+ */
+public class CsvImporter {
+    private static final int DEFAULT_BATCH_SIZE = 10_000;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final int batchSize;
+
+    public CsvImporter() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public CsvImporter(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return false if any of the batches could not be put or the CSV is malformed, the import stops there
+     */
+    @SneakyThrows
+    public boolean importInto(GoogleSheet googleSheet, ReadableByteChannel channel) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        final Map<String, String> batch = new LinkedHashMap<>();
+        final StringBuilder field = new StringBuilder();
+        final StringBuilder address = new StringBuilder();
+        int row = 1;
+        int column = 1;
+        boolean quoted = false;
+        boolean afterClosingQuote = false;
+
+        while (channel.read(buffer) >= 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                final byte b = buffer.get();
+                if (b < 0) {
+                    return false;
+                }
+                final char c = (char) b;
+                if (quoted) {
+                    if (c == '"') {
+                        quoted = false;
+                        afterClosingQuote = true;
+                    } else {
+                        field.append(c);
+                    }
+                    continue;
+                }
+
+                if (c == '"' && (afterClosingQuote || field.length() == 0)) {
+                    if (afterClosingQuote) {
+                        field.append('"');
+                    }
+                    quoted = true;
+                    afterClosingQuote = false;
+                    continue;
+                }
+                if (afterClosingQuote && c != ',' && c != '\n' && c != '\r') {
+                    return false;
+                }
+                afterClosingQuote = false;
+
+                if (c == ',' || c == '\n') {
+                    addField(batch, field, address, row, column);
+                    if (c == ',') {
+                        column++;
+                    } else {
+                        column = 1;
+                        row++;
+                    }
+                    if (batch.size() >= batchSize && !flush(googleSheet, batch)) {
+                        return false;
+                    }
+                } else if (c != '\r') {
+                    field.append(c);
+                }
+            }
+            buffer.clear();
+        }
+
+        if (quoted) {
+            return false;
+        }
+        addField(batch, field, address, row, column);
+        return flush(googleSheet, batch);
+    }
+
+    private static void addField(Map<String, String> batch, StringBuilder field, StringBuilder address,
+                                 int row, int column) {
+        if (field.length() == 0) {
+            return;
+        }
+        address.setLength(0);
+        CellCoordinates.appendColumnName(column, address);
+        address.append(row);
+        batch.put(address.toString(), field.toString());
+        field.setLength(0);
+    }
+
+    private static boolean flush(GoogleSheet googleSheet, Map<String, String> batch) {
+        final boolean put = batch.isEmpty() || googleSheet.putValues(batch);
+        batch.clear();
+        return put;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.util.function.IntConsumer;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Reverse edges of cell references: for every cell id, ids of the cells referring to it, once per reference.
+ * Forward edges are the references kept in {@link CellsStorage} itself.
+ */
+public interface DependencyGraph {
+    void addDependent(int id, int dependentId);
+    void removeDependent(int id, int dependentId);
+
+    /**
+     * Gives the dependents of the cell, the consumer must not change the graph.
+     */
+    void forEachDependent(int id, IntConsumer consumer);
+
+    /**
+     * Whether the edges are those of the cells stored, false if they were left out of step by a crash
+     * and have to be linked again after {@link #clear()}.
+     */
+    default boolean isIntact() {
+        return true;
+    }
+
+    default void clear() {}
+
+    /**
+     * After that the dependents can be read from different threads, as long as nothing changes.
+     */
+    default void prepareConcurrentReads() {}
+
+    /**
+     * Makes the edges durable, if they are persisted at all.
+     */
+    default void force() {}
+
+    default void close() {}
+}
@@ -1,60 +1,179 @@
 package ru.kmoiseev.archive.googlesheet.impl;
 
-import lombok.Value;
-
-import java.util.HashSet;
-import java.util.Set;
-
-import static java.lang.Long.parseLong;
-import static java.util.Objects.isNull;
+import ru.kmoiseev.archive.googlesheet.impl.expression.AggregateFunction;
+import ru.kmoiseev.archive.googlesheet.impl.expression.RangeAggregate;
 
 /**
  * @author konstantinmoiseev
  * @since 25.01.2022
+ *
+ * Depth-first evaluation on an explicit stack. A cell is marked in progress when its references are pushed
+ * and evaluated once they all are; meeting a cell in progress among the references means a cycle.
+ * Cycled cells, and cells referring to them, are remembered as cycled until invalidated.
+ * Values are primitive longs all the way, boxed only for the caller; a sum not fitting a long makes the cell
+ * overflowed instead of wrapping around, and so are cells referring to it. Both cycled and overflowed evaluate to null.
+ * Evicted cells are evaluated again like dirty ones, and the values cache is trimmed only once the evaluation is over.
  */
-@Value
 public class Evaluator {
-    CellsStorage cellsStorage;
+    private final CellsStorage cellsStorage;
+    private final ValuesCache valuesCache;
+    private final RangeIndex rangeIndex;
+    private final IntStack stack = new IntStack();
+    private final IntStack rangeDirty = new IntStack();
 
-    public Long evaluate(String address) {
-        final Set<String> visited = new HashSet<>();
+    public Evaluator(CellsStorage cellsStorage, ValuesCache valuesCache, RangeIndex rangeIndex) {
+        this.cellsStorage = cellsStorage;
+        this.valuesCache = valuesCache;
+        this.rangeIndex = rangeIndex;
+    }
 
-        try {
-            return evaluate(address, visited);
-        } catch (CycledCellsException e) {
-            return null;
+    public Long evaluate(int id) {
+        valuesCache.recordRead(isResolved(id));
+        stack.push(id);
+        while (!stack.isEmpty()) {
+            final int top = stack.peek();
+            if (isResolved(top)) {
+                stack.pop();
+            } else if (valuesCache.needsEvaluation(top)) {
+                expand(top);
+            } else {
+                stack.pop();
+                complete(top);
+            }
         }
+
+        final Long value = valuesCache.isCycled(id) || valuesCache.isOverflowed(id) ? null : valueOf(id);
+        valuesCache.evictExcess();
+        return value;
     }
 
-    private Long evaluate(String address, Set<String> visited) {
-        if (visited.contains(address)) {
-            throw new CycledCellsException();
+    private void expand(int id) {
+        switch (cellsStorage.getType(id)) {
+            case NUMBER:
+                stack.pop();
+                valuesCache.put(id, cellsStorage.getNumber(id));
+                return;
+            case REFERENCE:
+                expand(id, cellsStorage.getReference(id), cellsStorage.getReference(id));
+                return;
+            case SUM:
+                expand(id, cellsStorage.getLeft(id), cellsStorage.getRight(id));
+                return;
+            case RANGE:
+                expandRange(id);
+                return;
+            case UNDEFINED:
+                stack.pop();
+                valuesCache.putCycled(id);
+                return;
+            default:
+                throw new IllegalStateException("There must be at least one cell type");
         }
-        visited.add(address);
+    }
 
-        final String cellValue = cellsStorage.get(address);
-        if (isNull(cellValue)) {
-            return 0L;
+    /**
+     * References of a range cell are the dirty cells of its range, found in {@link RangeIndex}.
+     */
+    private void expandRange(int id) {
+        rangeIndex.collectDirty(cellsStorage.getRange(id), rangeDirty);
+        if (rangeDirty.isEmpty()) {
+            stack.pop();
+            complete(id);
+            return;
         }
 
-        final CellType cellType = CellType.getCellType(cellValue);
-        switch (cellType) {
-            case SUM: {
-                final String[] leftRightAddresses = cellValue.replace("=", "").split("\\+");
-                final String leftAddress = leftRightAddresses[0];
-                final String rightAddress = leftRightAddresses[1];
-                return evaluate(leftAddress, visited) + evaluate(rightAddress, visited);
+        boolean cycled = false;
+        for (int i = 0; i < rangeDirty.size() && !cycled; i++) {
+            final int reference = rangeDirty.get(i);
+            cycled = reference == id || valuesCache.isInProgress(reference);
+        }
+        if (cycled) {
+            rangeDirty.clear();
+            stack.pop();
+            valuesCache.putCycled(id);
+            return;
+        }
+
+        valuesCache.markInProgress(id);
+        while (!rangeDirty.isEmpty()) {
+            stack.push(rangeDirty.pop());
+        }
+    }
+
+    private void expand(int id, int left, int right) {
+        if (valuesCache.isInProgress(left) || valuesCache.isInProgress(right) || left == id || right == id) {
+            stack.pop();
+            valuesCache.putCycled(id);
+            return;
+        }
+
+        valuesCache.markInProgress(id);
+        if (!isResolved(right)) {
+            stack.push(right);
+        }
+        if (left != right && !isResolved(left)) {
+            stack.push(left);
+        }
+    }
+
+    private void complete(int id) {
+        switch (cellsStorage.getType(id)) {
+            case REFERENCE: {
+                final int reference = cellsStorage.getReference(id);
+                complete(id, reference, reference);
+                return;
             }
-            case NUMBER: {
-                return parseLong(cellValue);
+            case SUM: {
+                complete(id, cellsStorage.getLeft(id), cellsStorage.getRight(id));
+                return;
             }
-            case REFERENCE: {
-                return evaluate(cellValue.replace("=", ""), visited);
+            case RANGE: {
+                final RangeAggregate range = cellsStorage.getRange(id);
+                if (rangeIndex.hasCycled(range)) {
+                    valuesCache.putCycled(id);
+                    return;
+                }
+                final ColumnTree.Accumulator accumulator = rangeIndex.aggregate(range);
+                final boolean overflowed = range.getFunction() != AggregateFunction.COUNT
+                        && rangeIndex.hasOverflowed(range);
+                if (overflowed || !accumulator.fits(range.getFunction())) {
+                    valuesCache.putOverflowed(id);
+                } else {
+                    valuesCache.put(id, accumulator.result(range.getFunction()));
+                }
+                return;
             }
+            default:
+                throw new IllegalStateException("Only cells with references are completed");
+        }
+    }
+
+    private void complete(int id, int left, int right) {
+        if (valuesCache.isCycled(left) || valuesCache.isCycled(right)) {
+            valuesCache.putCycled(id);
+            return;
+        }
+        if (valuesCache.isOverflowed(left) || valuesCache.isOverflowed(right)) {
+            valuesCache.putOverflowed(id);
+            return;
+        }
+
+        if (cellsStorage.getType(id) != CellType.SUM) {
+            valuesCache.put(id, valueOf(left));
+            return;
         }
+        try {
+            valuesCache.put(id, Math.addExact(valueOf(left), valueOf(right)));
+        } catch (ArithmeticException overflow) {
+            valuesCache.putOverflowed(id);
+        }
+    }
 
-        throw new IllegalStateException("There must be at least one cell type");
+    private boolean isResolved(int id) {
+        return cellsStorage.getType(id) == CellType.EMPTY || valuesCache.isCalculated(id);
     }
 
-    private static class CycledCellsException extends RuntimeException {}
+    private long valueOf(int id) {
+        return cellsStorage.getType(id) == CellType.EMPTY ? 0L : valuesCache.get(id);
+    }
 }
@@ -0,0 +1,143 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import ru.kmoiseev.archive.googlesheet.impl.expression.RangeAggregate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * BigDecimal evaluation of the overflowed cells. Everything fitting a long is taken from {@link Evaluator},
+ * only overflowed cells are calculated here, on an explicit stack, and remembered until invalidated.
+ * Overflowed cells never form a cycle, cycled cells are not overflowed.
+ */
+public class ExactEvaluator {
+    private final CellsStorage cellsStorage;
+    private final ValuesCache valuesCache;
+    private final RangeIndex rangeIndex;
+    private final Evaluator evaluator;
+    private final Map<Integer, BigDecimal> exactValues = new HashMap<>();
+    private final IntStack stack = new IntStack();
+    private final IntStack references = new IntStack();
+    private final IntStack rangeOverflowed = new IntStack();
+
+    public ExactEvaluator(CellsStorage cellsStorage, ValuesCache valuesCache, RangeIndex rangeIndex,
+                          Evaluator evaluator) {
+        this.cellsStorage = cellsStorage;
+        this.valuesCache = valuesCache;
+        this.rangeIndex = rangeIndex;
+        this.evaluator = evaluator;
+        valuesCache.addInvalidationListener(exactValues::remove);
+    }
+
+    public BigDecimal evaluate(int id) {
+        final Long value = evaluator.evaluate(id);
+        if (value != null) {
+            return BigDecimal.valueOf(value);
+        }
+        if (!valuesCache.isOverflowed(id)) {
+            return null;
+        }
+
+        stack.push(id);
+        while (!stack.isEmpty()) {
+            final int top = stack.peek();
+            if (exactValues.containsKey(top)) {
+                stack.pop();
+                continue;
+            }
+
+            collectOverflowedReferences(top);
+            if (references.isEmpty()) {
+                stack.pop();
+                exactValues.put(top, calculate(top));
+            }
+            while (!references.isEmpty()) {
+                stack.push(references.pop());
+            }
+        }
+        return exactValues.get(id);
+    }
+
+    private void collectOverflowedReferences(int id) {
+        switch (cellsStorage.getType(id)) {
+            case REFERENCE:
+                collectOverflowed(cellsStorage.getReference(id));
+                return;
+            case SUM:
+                collectOverflowed(cellsStorage.getLeft(id));
+                collectOverflowed(cellsStorage.getRight(id));
+                return;
+            case RANGE:
+                rangeIndex.collectOverflowed(cellsStorage.getRange(id), rangeOverflowed);
+                while (!rangeOverflowed.isEmpty()) {
+                    collectOverflowed(rangeOverflowed.pop());
+                }
+                return;
+            default:
+                throw new IllegalStateException("Only cells with references overflow");
+        }
+    }
+
+    private void collectOverflowed(int reference) {
+        if (valuesCache.isOverflowed(reference) && !exactValues.containsKey(reference)) {
+            references.push(reference);
+        }
+    }
+
+    private BigDecimal calculate(int id) {
+        switch (cellsStorage.getType(id)) {
+            case REFERENCE:
+                return exactValueOf(cellsStorage.getReference(id));
+            case SUM:
+                return exactValueOf(cellsStorage.getLeft(id)).add(exactValueOf(cellsStorage.getRight(id)));
+            case RANGE:
+                return calculateRange(cellsStorage.getRange(id));
+            default:
+                throw new IllegalStateException("Only cells with references overflow");
+        }
+    }
+
+    private BigDecimal calculateRange(RangeAggregate range) {
+        final ColumnTree.Accumulator accumulator = rangeIndex.aggregate(range);
+        rangeIndex.collectOverflowed(range, rangeOverflowed);
+        final long fittingCount = accumulator.getCount() - rangeOverflowed.size();
+
+        BigDecimal result;
+        switch (range.getFunction()) {
+            case SUM:
+                result = new BigDecimal(accumulator.exactSum());
+                while (!rangeOverflowed.isEmpty()) {
+                    result = result.add(exactValues.get(rangeOverflowed.pop()));
+                }
+                return result;
+            case MIN:
+                result = fittingCount > 0 ? BigDecimal.valueOf(accumulator.getMin()) : null;
+                while (!rangeOverflowed.isEmpty()) {
+                    final BigDecimal value = exactValues.get(rangeOverflowed.pop());
+                    result = result == null ? value : result.min(value);
+                }
+                return result;
+            case MAX:
+                result = fittingCount > 0 ? BigDecimal.valueOf(accumulator.getMax()) : null;
+                while (!rangeOverflowed.isEmpty()) {
+                    final BigDecimal value = exactValues.get(rangeOverflowed.pop());
+                    result = result == null ? value : result.max(value);
+                }
+                return result;
+            default:
+                throw new IllegalStateException("Only SUM, MIN and MAX overflow");
+        }
+    }
+
+    private BigDecimal exactValueOf(int id) {
+        if (valuesCache.isOverflowed(id)) {
+            return exactValues.get(id);
+        }
+        final Long value = evaluator.evaluate(id);
+        return BigDecimal.valueOf(value);
+    }
+}
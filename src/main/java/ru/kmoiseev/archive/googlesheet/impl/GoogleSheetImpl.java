@@ -1,9 +1,20 @@
 package ru.kmoiseev.archive.googlesheet.impl;
 
 import ru.kmoiseev.archive.googlesheet.GoogleSheet;
+import ru.kmoiseev.archive.googlesheet.Subscription;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Expression;
+import ru.kmoiseev.archive.googlesheet.impl.expression.RangeAggregate;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Reference;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Sum;
 
-import java.util.HashMap;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 /**
@@ -12,14 +23,74 @@ import static java.util.Objects.nonNull;
  */
 public class GoogleSheetImpl implements GoogleSheet {
 
-    private final CellsStorage cellsStorage = new CellsStorage(new HashMap<>());
+    private final CellsStorage cellsStorage;
+    private final DependencyGraph dependencyGraph;
+    private final RangeIndex rangeIndex;
+    private final ValuesCache valuesCache;
+    private final Evaluator evaluator;
+    private final Recalculator recalculator;
+    private final ExactEvaluator exactEvaluator;
+    private final Subscriptions subscriptions = new Subscriptions();
+    private final IntStack invalidatedSubscribed = new IntStack();
+    private final boolean qualifiedReferences;
 
-    private static boolean checkAddress(String address) {
-        return nonNull(address) && !address.isBlank() && !address.contains(" ");
+    public GoogleSheetImpl() {
+        this(GoogleSheetSettings.builder().build());
     }
 
-    private static boolean checkValue(String value) {
-        return CellType.getCellType(value) != null;
+    /**
+     * A persisted sheet is opened with the cells already put there; call {@link #shutdown()} to close it.
+     * Addresses, cell records and dependencies are mapped from the directory as they are, so opening reads
+     * only the range cells, and a cell record is read when the cell is first needed; the cells of the ranges
+     * are listed once a range is first evaluated. After a crash the dependencies are linked again from every
+     * cell record on the next open. Changes are durable once {@link #flush()} or {@link #shutdown()} returns:
+     * a crash of the OS, unlike one of the process, may lose the changes put since.
+     */
+    public GoogleSheetImpl(GoogleSheetSettings settings) {
+        this(settings, false);
+    }
+
+    /**
+     * @param qualifiedReferences whether values may refer to cells of other sheets, "=Sheet2!A1", which only
+     *                            a {@link WorkbookImpl} sheet resolves; a plain sheet rejects such values
+     */
+    GoogleSheetImpl(GoogleSheetSettings settings, boolean qualifiedReferences) {
+        final int maximumCachedValues = settings.getMaximumCachedValues();
+        if (maximumCachedValues < 1 && maximumCachedValues != ValuesCache.UNBOUNDED) {
+            throw new IllegalArgumentException("Maximum cached values must be positive: " + maximumCachedValues);
+        }
+
+        this.qualifiedReferences = qualifiedReferences;
+        final Path directory = settings.getPersistenceDirectory();
+        this.cellsStorage = isNull(directory) ? new CellsStorage() : CellsStorage.open(directory);
+        this.dependencyGraph = isNull(directory) ? new HeapDependencyGraph() : new MappedDependencyGraph(directory);
+        this.rangeIndex = new RangeIndex(cellsStorage);
+        this.valuesCache = new ValuesCache(dependencyGraph, rangeIndex, maximumCachedValues);
+        this.evaluator = new Evaluator(cellsStorage, valuesCache, rangeIndex);
+        this.recalculator = new Recalculator(cellsStorage, dependencyGraph, valuesCache, evaluator,
+                settings.getRecalculationPool());
+        this.exactEvaluator = settings.getNumericMode() == NumericMode.BIG_DECIMAL
+                ? new ExactEvaluator(cellsStorage, valuesCache, rangeIndex, evaluator)
+                : null;
+        this.valuesCache.addInvalidationListener(id -> {
+            if (subscriptions.isSubscribed(id)) {
+                invalidatedSubscribed.push(id);
+            }
+        });
+        if (dependencyGraph.isIntact()) {
+            cellsStorage.forEachRange(id -> rangeIndex.watch(id, cellsStorage.getRange(id), valuesCache::index));
+            return;
+        }
+        dependencyGraph.clear();
+        for (int id = 0, size = cellsStorage.size(); id < size; id++) {
+            if (cellsStorage.getType(id) != CellType.EMPTY) {
+                link(id);
+            }
+        }
+    }
+
+    static boolean checkAddress(String address) {
+        return nonNull(address) && !address.isBlank() && !address.contains(" ");
     }
 
     @Override
@@ -28,20 +99,235 @@ public class GoogleSheetImpl implements GoogleSheet {
             return false;
         }
 
-        if (!checkValue(value)) {
+        final Expression expression = CellParser.parse(value, qualifiedReferences);
+        if (expression == null) {
+            return false;
+        }
+
+        final int id = put(address, expression);
+        valuesCache.invalidate(id);
+        notifySubscribers();
+        return true;
+    }
+
+    @Override
+    public boolean putValues(Map<String, String> valuesByAddress) {
+        if (valuesByAddress == null) {
+            return false;
+        }
+
+        final List<String> addresses = new ArrayList<>(valuesByAddress.size());
+        final List<Expression> expressions = new ArrayList<>(valuesByAddress.size());
+        for (Map.Entry<String, String> addressAndValue : valuesByAddress.entrySet()) {
+            if (!checkAddress(addressAndValue.getKey())) {
+                return false;
+            }
+            final Expression expression = CellParser.parse(addressAndValue.getValue(), qualifiedReferences);
+            if (expression == null) {
+                return false;
+            }
+            addresses.add(addressAndValue.getKey());
+            expressions.add(expression);
+        }
+
+        final IntStack changed = new IntStack();
+        for (int i = 0; i < addresses.size(); i++) {
+            changed.push(put(addresses.get(i), expressions.get(i)));
+        }
+        valuesCache.invalidate(changed);
+        notifySubscribers();
+        return true;
+    }
+
+    /**
+     * Empties the cell, so it evaluates to 0 like a cell never put; false if there is no such cell.
+     */
+    boolean clearValue(String address) {
+        final int id = cellsStorage.find(address);
+        if (id == AddressIndex.ABSENT) {
             return false;
         }
 
-        cellsStorage.put(address, value);
+        unlink(id);
+        cellsStorage.clear(id);
+        valuesCache.invalidate(id);
+        rangeIndex.onCleared(id);
+        notifySubscribers();
         return true;
     }
 
+    /**
+     * Puts the cell without a value, so it and the cells referring to it evaluate to null.
+     */
+    void putUndefined(String address) {
+        final int id = cellsStorage.idOf(address);
+        unlink(id);
+        cellsStorage.putUndefined(id);
+        valuesCache.invalidate(id);
+        notifySubscribers();
+    }
+
+    /**
+     * Expression of the cell referring to other cells, null if the cell refers to none.
+     */
+    Expression expressionOf(String address) {
+        final int id = cellsStorage.find(address);
+        if (id == AddressIndex.ABSENT) {
+            return null;
+        }
+
+        switch (cellsStorage.getType(id)) {
+            case REFERENCE:
+                return new Reference(cellsStorage.addressOf(cellsStorage.getReference(id)));
+            case SUM:
+                return new Sum(cellsStorage.addressOf(cellsStorage.getLeft(id)),
+                        cellsStorage.addressOf(cellsStorage.getRight(id)));
+            case RANGE:
+                return cellsStorage.getRange(id);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gives the addresses of the non-empty cells within the range.
+     */
+    void forEachCellIn(RangeAggregate range, Consumer<String> consumer) {
+        rangeIndex.forEachCell(range, id -> consumer.accept(cellsStorage.addressOf(id)));
+    }
+
+    private int put(String address, Expression expression) {
+        final int id = cellsStorage.idOf(address);
+        unlink(id);
+        cellsStorage.put(id, expression);
+        link(id);
+        return id;
+    }
+
+    private void unlink(int id) {
+        cellsStorage.forEachReference(id, referenceId -> dependencyGraph.removeDependent(referenceId, id));
+        rangeIndex.unwatch(id);
+    }
+
+    private void link(int id) {
+        cellsStorage.forEachReference(id, referenceId -> dependencyGraph.addDependent(referenceId, id));
+        if (cellsStorage.getType(id) == CellType.RANGE) {
+            rangeIndex.watch(id, cellsStorage.getRange(id), valuesCache::index);
+        }
+    }
+
     @Override
     public Long evaluate(String address) {
         if (!checkAddress(address)) {
             return null;
         }
 
-        return new Evaluator(cellsStorage).evaluate(address);
+        final int id = cellsStorage.find(address);
+        if (id == AddressIndex.ABSENT) {
+            return 0L;
+        }
+
+        return evaluator.evaluate(id);
+    }
+
+    /**
+     * Like {@link #evaluate(String)}, but a value not fitting a long is calculated exactly
+     * when the sheet is in {@link NumericMode#BIG_DECIMAL} mode; null otherwise and for cycles.
+     */
+    public BigDecimal evaluateExact(String address) {
+        if (!checkAddress(address)) {
+            return null;
+        }
+
+        final int id = cellsStorage.find(address);
+        if (id == AddressIndex.ABSENT) {
+            return BigDecimal.ZERO;
+        }
+
+        if (exactEvaluator != null) {
+            return exactEvaluator.evaluate(id);
+        }
+        final Long value = evaluator.evaluate(id);
+        return value == null ? null : BigDecimal.valueOf(value);
+    }
+
+    @Override
+    public Subscription subscribe(String address, Consumer<Long> listener) {
+        if (!checkAddress(address) || listener == null) {
+            return null;
+        }
+
+        final int id = cellsStorage.idOf(address);
+        return subscriptions.subscribe(id, evaluator.evaluate(id), listener);
+    }
+
+    private void notifySubscribers() {
+        while (!invalidatedSubscribed.isEmpty()) {
+            final int id = invalidatedSubscribed.pop();
+            subscriptions.changed(id, evaluator.evaluate(id));
+        }
+    }
+
+    /**
+     * Makes the changes put so far durable, if the sheet is persisted at all.
+     */
+    public void flush() {
+        cellsStorage.force();
+        dependencyGraph.force();
+    }
+
+    /**
+     * The dependencies are closed last, so they are trusted on the next open only if everything else was closed.
+     */
+    @Override
+    public void shutdown() {
+        cellsStorage.close();
+        dependencyGraph.close();
+    }
+
+    public CacheStats getCacheStats() {
+        return valuesCache.getStats();
+    }
+
+    public int getColumnsCount() {
+        return cellsStorage.getMaxColumn();
+    }
+
+    public int getRowsCount() {
+        return cellsStorage.getMaxRow();
+    }
+
+    Long evaluate(int id) {
+        return evaluator.evaluate(id);
+    }
+
+    int size() {
+        return cellsStorage.size();
+    }
+
+    String addressOf(int id) {
+        return cellsStorage.addressOf(id);
+    }
+
+    /**
+     * Coordinates of the non-empty A1-style cell, {@link CellCoordinates#NONE} for other cells.
+     */
+    long coordinatesOf(int id) {
+        return cellsStorage.getType(id) == CellType.EMPTY ? CellCoordinates.NONE : cellsStorage.getCoordinates(id);
+    }
+
+    int idOf(String address) {
+        return cellsStorage.idOf(address);
+    }
+
+    void trackInvalidated(IntStack sink) {
+        valuesCache.addInvalidationListener(sink::push);
+    }
+
+    /**
+     * Calculates every cell of the sheet in parallel, so following evaluations are just reads.
+     */
+    public void recalculateAll() {
+        recalculator.recalculateAll();
     }
 }
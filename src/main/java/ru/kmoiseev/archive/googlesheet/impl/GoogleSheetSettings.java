@@ -0,0 +1,36 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Options of {@link GoogleSheetImpl}; the defaults are a sheet on heap keeping every evaluated value in longs.
+ */
+@Value
+@Builder
+public class GoogleSheetSettings {
+    /**
+     * Pool of {@link GoogleSheetImpl#recalculateAll()}.
+     */
+    @Builder.Default
+    ForkJoinPool recalculationPool = ForkJoinPool.commonPool();
+    /**
+     * At most that many evaluated values are kept between evaluations, at least 1; less used values are evicted
+     * and calculated again when read. {@link ValuesCache#UNBOUNDED} keeps all of them.
+     */
+    @Builder.Default
+    int maximumCachedValues = ValuesCache.UNBOUNDED;
+    @Builder.Default
+    NumericMode numericMode = NumericMode.LONG;
+    /**
+     * Directory the cells are persisted in, opened with the cells already put there, see {@link CellsStorage#open};
+     * null keeps them in memory only.
+     */
+    Path persistenceDirectory;
+}
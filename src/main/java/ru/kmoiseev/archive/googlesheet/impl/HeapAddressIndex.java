@@ -0,0 +1,103 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.util.Arrays;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Addresses kept on heap. Lookup is an open addressing table of addresses and ids, so there are no map entries
+ * and no boxed integers per cell.
+ */
+public class HeapAddressIndex implements AddressIndex {
+    private String[] addresses = new String[16];
+    private String[] slotAddresses = new String[32];
+    private int[] slotIds = new int[32];
+    private final LongBlocks coordinates = new LongBlocks();
+    private int size;
+    private int maxColumn;
+    private int maxRow;
+
+    @Override
+    public int find(String address) {
+        final int mask = slotAddresses.length - 1;
+        for (int slot = hash(address) & mask; slotAddresses[slot] != null; slot = (slot + 1) & mask) {
+            if (slotAddresses[slot].equals(address)) {
+                return slotIds[slot];
+            }
+        }
+        return ABSENT;
+    }
+
+    @Override
+    public int intern(String address) {
+        final int mask = slotAddresses.length - 1;
+        int slot = hash(address) & mask;
+        for (; slotAddresses[slot] != null; slot = (slot + 1) & mask) {
+            if (slotAddresses[slot].equals(address)) {
+                return slotIds[slot];
+            }
+        }
+
+        final int id = size++;
+        if (id == addresses.length) {
+            addresses = Arrays.copyOf(addresses, id << 1);
+        }
+        addresses[id] = address;
+        final long idCoordinates = CellCoordinates.decode(address);
+        coordinates.set(id, idCoordinates);
+        maxColumn = Math.max(maxColumn, CellCoordinates.column(idCoordinates));
+        maxRow = Math.max(maxRow, CellCoordinates.row(idCoordinates));
+        slotAddresses[slot] = address;
+        slotIds[slot] = id;
+
+        if (size << 1 > slotAddresses.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    @Override
+    public String addressOf(int id) {
+        return addresses[id];
+    }
+
+    @Override
+    public long coordinatesOf(int id) {
+        return coordinates.get(id);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getMaxColumn() {
+        return maxColumn;
+    }
+
+    @Override
+    public int getMaxRow() {
+        return maxRow;
+    }
+
+    private void rehash() {
+        slotAddresses = new String[slotAddresses.length << 1];
+        slotIds = new int[slotIds.length << 1];
+        final int mask = slotAddresses.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(addresses[id]) & mask;
+            while (slotAddresses[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            slotAddresses[slot] = addresses[id];
+            slotIds[slot] = id;
+        }
+    }
+
+    private static int hash(String address) {
+        final int hash = address.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+}
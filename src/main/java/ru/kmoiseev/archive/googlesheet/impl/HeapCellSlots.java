@@ -0,0 +1,26 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+public class HeapCellSlots implements CellSlots {
+    private final ByteBlocks types = new ByteBlocks();
+    private final LongBlocks payloads = new LongBlocks();
+
+    @Override
+    public byte getType(int id) {
+        return types.get(id);
+    }
+
+    @Override
+    public long getPayload(int id) {
+        return payloads.get(id);
+    }
+
+    @Override
+    public void set(int id, byte type, long payload) {
+        types.set(id, type);
+        payloads.set(id, payload);
+    }
+}
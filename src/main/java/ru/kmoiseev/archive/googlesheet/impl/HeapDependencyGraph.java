@@ -0,0 +1,65 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Reverse edges kept on heap: an array of dependents per cell id, grown by doubling.
+ */
+public class HeapDependencyGraph implements DependencyGraph {
+    private int[][] dependents = new int[16][];
+    private int[] dependentsCounts = new int[16];
+
+    @Override
+    public void addDependent(int id, int dependentId) {
+        ensureCapacity(id);
+        int[] idDependents = dependents[id];
+        final int count = dependentsCounts[id];
+        if (idDependents == null) {
+            idDependents = new int[2];
+        } else if (count == idDependents.length) {
+            idDependents = Arrays.copyOf(idDependents, count << 1);
+        }
+        idDependents[count] = dependentId;
+        dependents[id] = idDependents;
+        dependentsCounts[id] = count + 1;
+    }
+
+    @Override
+    public void removeDependent(int id, int dependentId) {
+        final int[] idDependents = dependents[id];
+        final int last = dependentsCounts[id] - 1;
+        for (int i = last; i >= 0; i--) {
+            if (idDependents[i] == dependentId) {
+                idDependents[i] = idDependents[last];
+                dependentsCounts[id] = last;
+                if (last == 0) {
+                    dependents[id] = null;
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void forEachDependent(int id, IntConsumer consumer) {
+        if (id >= dependentsCounts.length) {
+            return;
+        }
+        final int[] idDependents = dependents[id];
+        for (int i = 0, count = dependentsCounts[id]; i < count; i++) {
+            consumer.accept(idDependents[i]);
+        }
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= dependents.length) {
+            final int capacity = Math.max(dependents.length << 1, id + 1);
+            dependents = Arrays.copyOf(dependents, capacity);
+            dependentsCounts = Arrays.copyOf(dependentsCounts, capacity);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.util.Arrays;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+public class IntStack {
+    private int[] elements = new int[16];
+    private int size;
+
+    public void push(int element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size << 1);
+        }
+        elements[size++] = element;
+    }
+
+    public int pop() {
+        return elements[--size];
+    }
+
+    public int peek() {
+        return elements[size - 1];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        return elements[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
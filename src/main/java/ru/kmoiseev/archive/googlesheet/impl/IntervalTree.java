@@ -0,0 +1,144 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Closed int intervals with an int value each, a treap ordered by interval start and value, every node keeping
+ * the largest end below it, so the values of the intervals containing a point are found in O(log n + found)
+ * and an interval is added or removed in O(log n).
+ */
+class IntervalTree {
+    private Node root;
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    void add(int from, int to, int value) {
+        root = add(root, new Node(from, to, value, ThreadLocalRandom.current().nextInt()));
+    }
+
+    /**
+     * Removes the interval starting at from with the value, if any.
+     */
+    void remove(int from, int value) {
+        root = remove(root, from, value);
+    }
+
+    /**
+     * Pushes the values of the intervals containing the point.
+     */
+    void collect(int point, IntStack out) {
+        collect(root, point, out);
+    }
+
+    private static Node add(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (isBefore(added.from, added.value, node)) {
+            node.left = add(node.left, added);
+            return node.left.priority > node.priority ? rotateRight(node) : update(node);
+        }
+        node.right = add(node.right, added);
+        return node.right.priority > node.priority ? rotateLeft(node) : update(node);
+    }
+
+    private static Node remove(Node node, int from, int value) {
+        if (node == null) {
+            return null;
+        }
+        if (node.from == from && node.value == value) {
+            return merge(node.left, node.right);
+        }
+        if (isBefore(from, value, node)) {
+            node.left = remove(node.left, from, value);
+        } else {
+            node.right = remove(node.right, from, value);
+        }
+        return update(node);
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    /**
+     * Skips subtrees ending before the point, and right subtrees once the intervals start after it.
+     */
+    private static void collect(Node node, int point, IntStack out) {
+        if (node == null || node.maxTo < point) {
+            return;
+        }
+        collect(node.left, point, out);
+        if (node.from > point) {
+            return;
+        }
+        if (node.to >= point) {
+            out.push(node.value);
+        }
+        collect(node.right, point, out);
+    }
+
+    private static boolean isBefore(int from, int value, Node node) {
+        return from < node.from || (from == node.from && value < node.value);
+    }
+
+    private static Node rotateRight(Node node) {
+        final Node left = node.left;
+        node.left = left.right;
+        left.right = update(node);
+        return update(left);
+    }
+
+    private static Node rotateLeft(Node node) {
+        final Node right = node.right;
+        node.right = right.left;
+        right.left = update(node);
+        return update(right);
+    }
+
+    private static Node update(Node node) {
+        int maxTo = node.to;
+        if (node.left != null) {
+            maxTo = Math.max(maxTo, node.left.maxTo);
+        }
+        if (node.right != null) {
+            maxTo = Math.max(maxTo, node.right.maxTo);
+        }
+        node.maxTo = maxTo;
+        return node;
+    }
+
+    private static class Node {
+        private final int from;
+        private final int to;
+        private final int value;
+        private final int priority;
+        private int maxTo;
+        private Node left;
+        private Node right;
+
+        private Node(int from, int to, int value, int priority) {
+            this.from = from;
+            this.to = to;
+            this.value = value;
+            this.priority = priority;
+            this.maxTo = to;
+        }
+    }
+}
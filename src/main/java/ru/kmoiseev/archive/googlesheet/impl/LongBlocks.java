@@ -0,0 +1,54 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.util.Arrays;
+
+import static ru.kmoiseev.archive.googlesheet.impl.Blocks.BLOCK_SIZE;
+import static ru.kmoiseev.archive.googlesheet.impl.Blocks.block;
+import static ru.kmoiseev.archive.googlesheet.impl.Blocks.capacityFor;
+import static ru.kmoiseev.archive.googlesheet.impl.Blocks.offset;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+public class LongBlocks {
+    private long[][] blocks = new long[1][];
+
+    public long get(int id) {
+        final int block = block(id);
+        if (block >= blocks.length || blocks[block] == null) {
+            return 0L;
+        }
+        return blocks[block][offset(id)];
+    }
+
+    public void set(int id, long value) {
+        final int block = block(id);
+        if (block >= blocks.length) {
+            blocks = Arrays.copyOf(blocks, capacityFor(blocks.length, block));
+        }
+        if (blocks[block] == null) {
+            blocks[block] = new long[BLOCK_SIZE];
+        }
+        blocks[block][offset(id)] = value;
+    }
+
+    /**
+     * Allocates blocks for ids below the size, after that setting those ids never changes the blocks structure
+     * and can be done from different threads for different ids.
+     */
+    public void ensureCapacity(int size) {
+        if (size == 0) {
+            return;
+        }
+        final int lastBlock = block(size - 1);
+        if (lastBlock >= blocks.length) {
+            blocks = Arrays.copyOf(blocks, capacityFor(blocks.length, lastBlock));
+        }
+        for (int block = 0; block <= lastBlock; block++) {
+            if (blocks[block] == null) {
+                blocks[block] = new long[BLOCK_SIZE];
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Addresses kept in {@link MappedFile}s, so opening reads nothing but a header and a lookup pages in
+ * only the slots and records it probes:
+ * 1) "addresses.dat": the header (size, table capacity, largest column and row, end of the address bytes),
+ * then a 24 bytes record per id: offset and length of the UTF-8 bytes, hash and coordinates of the address
+ * 2) "address-bytes.dat": UTF-8 bytes of the addresses one after another
+ * 3) "address-table.dat": open addressing table of id + 1 per slot, 0 being a free slot.
+ * A table of capacity c lives at byte 4c, so growing fills the next table from the hashes in the records
+ * while the previous one stays intact, and the header switches to the new one once it is complete.
+ *
+ * An address is written before its slot, and its slot before the size: a slot of an id not below the size
+ * was torn by a crash and is taken as free.
+ */
+public class MappedAddressIndex implements AddressIndex {
+    private static final int RECORD_SIZE = 24;
+    private static final int SIZE = 0;
+    private static final int TABLE_CAPACITY = 4;
+    private static final int MAX_COLUMN = 8;
+    private static final int MAX_ROW = 12;
+    private static final int BYTES_END = 16;
+    private static final int INITIAL_TABLE_CAPACITY = 32;
+
+    private final MappedFile records;
+    private final MappedFile bytes;
+    private final MappedFile table;
+    private int size;
+    private int tableCapacity;
+    private int maxColumn;
+    private int maxRow;
+    private long bytesEnd;
+
+    public MappedAddressIndex(Path directory) {
+        this.records = new MappedFile(directory.resolve("addresses.dat"), RECORD_SIZE);
+        this.bytes = new MappedFile(directory.resolve("address-bytes.dat"), Byte.BYTES);
+        this.table = new MappedFile(directory.resolve("address-table.dat"), Integer.BYTES);
+        this.size = records.getInt(SIZE);
+        this.tableCapacity = records.getInt(TABLE_CAPACITY);
+        this.maxColumn = records.getInt(MAX_COLUMN);
+        this.maxRow = records.getInt(MAX_ROW);
+        this.bytesEnd = records.getLong(BYTES_END);
+        if (tableCapacity == 0) {
+            tableCapacity = INITIAL_TABLE_CAPACITY;
+            records.putInt(TABLE_CAPACITY, tableCapacity);
+        }
+    }
+
+    @Override
+    public int find(String address) {
+        final int hash = hash(address);
+        final int mask = tableCapacity - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            final int id = table.getInt(slotPosition(slot)) - 1;
+            if (id < 0 || id >= size) {
+                return ABSENT;
+            }
+            if (records.getInt(record(id) + 12) == hash && matches(id, address)) {
+                return id;
+            }
+        }
+    }
+
+    @Override
+    public int intern(String address) {
+        final int hash = hash(address);
+        final int mask = tableCapacity - 1;
+        int slot = hash & mask;
+        for (; ; slot = (slot + 1) & mask) {
+            final int id = table.getInt(slotPosition(slot)) - 1;
+            if (id < 0 || id >= size) {
+                break;
+            }
+            if (records.getInt(record(id) + 12) == hash && matches(id, address)) {
+                return id;
+            }
+        }
+
+        final int id = size;
+        final byte[] addressBytes = address.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < addressBytes.length; i++) {
+            bytes.putByte(bytesEnd + i, addressBytes[i]);
+        }
+        final long idCoordinates = CellCoordinates.decode(address);
+        final long record = record(id);
+        records.putLong(record, bytesEnd);
+        records.putInt(record + 8, addressBytes.length);
+        records.putInt(record + 12, hash);
+        records.putLong(record + 16, idCoordinates);
+        table.putInt(slotPosition(slot), id + 1);
+
+        bytesEnd += addressBytes.length;
+        maxColumn = Math.max(maxColumn, CellCoordinates.column(idCoordinates));
+        maxRow = Math.max(maxRow, CellCoordinates.row(idCoordinates));
+        records.putLong(BYTES_END, bytesEnd);
+        records.putInt(MAX_COLUMN, maxColumn);
+        records.putInt(MAX_ROW, maxRow);
+        records.putInt(SIZE, ++size);
+
+        if (size << 1 > tableCapacity) {
+            grow();
+        }
+        return id;
+    }
+
+    @Override
+    public String addressOf(int id) {
+        final long record = record(id);
+        final long from = records.getLong(record);
+        final byte[] addressBytes = new byte[records.getInt(record + 8)];
+        for (int i = 0; i < addressBytes.length; i++) {
+            addressBytes[i] = bytes.getByte(from + i);
+        }
+        return new String(addressBytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public long coordinatesOf(int id) {
+        return records.getLong(record(id) + 16);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getMaxColumn() {
+        return maxColumn;
+    }
+
+    @Override
+    public int getMaxRow() {
+        return maxRow;
+    }
+
+    @Override
+    public void prepareConcurrentReads() {
+        records.prepareConcurrentReads();
+        bytes.prepareConcurrentReads();
+        table.prepareConcurrentReads();
+    }
+
+    @Override
+    public void force() {
+        bytes.force();
+        table.force();
+        records.force();
+    }
+
+    @Override
+    public void close() {
+        bytes.close();
+        table.close();
+        records.close();
+    }
+
+    /**
+     * ASCII addresses are compared in place, others are decoded first.
+     */
+    private boolean matches(int id, String address) {
+        final long record = record(id);
+        final int length = records.getInt(record + 8);
+        if (length == address.length()) {
+            final long from = records.getLong(record);
+            for (int i = 0; i < length; i++) {
+                final char c = address.charAt(i);
+                if (c >= 0x80) {
+                    return addressOf(id).equals(address);
+                }
+                if (bytes.getByte(from + i) != c) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return length > address.length() && addressOf(id).equals(address);
+    }
+
+    private void grow() {
+        final int capacity = tableCapacity << 1;
+        final int mask = capacity - 1;
+        for (int slot = 0; slot < capacity; slot++) {
+            table.putInt(slotPosition(capacity, slot), 0);
+        }
+        for (int id = 0; id < size; id++) {
+            int slot = records.getInt(record(id) + 12) & mask;
+            while (table.getInt(slotPosition(capacity, slot)) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table.putInt(slotPosition(capacity, slot), id + 1);
+        }
+        tableCapacity = capacity;
+        records.putInt(TABLE_CAPACITY, capacity);
+    }
+
+    private long slotPosition(int slot) {
+        return slotPosition(tableCapacity, slot);
+    }
+
+    private static long slotPosition(int capacity, int slot) {
+        return ((long) capacity + slot) * Integer.BYTES;
+    }
+
+    private static long record(int id) {
+        return (id + 1L) * RECORD_SIZE;
+    }
+
+    private static int hash(String address) {
+        final int hash = address.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+}
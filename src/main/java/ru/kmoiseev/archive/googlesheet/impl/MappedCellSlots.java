@@ -0,0 +1,56 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.nio.file.Path;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Cell records kept in a {@link MappedFile}, 9 bytes per cell id: type code and payload.
+ * Only the touched records are paged in, and the file grows with the ids written.
+ */
+public class MappedCellSlots implements CellSlots {
+    private static final int RECORD_SIZE = 9;
+
+    private final MappedFile file;
+
+    public MappedCellSlots(Path file) {
+        this.file = new MappedFile(file, RECORD_SIZE);
+    }
+
+    @Override
+    public byte getType(int id) {
+        return file.getByte(position(id));
+    }
+
+    @Override
+    public long getPayload(int id) {
+        return file.getLong(position(id) + 1);
+    }
+
+    @Override
+    public void set(int id, byte type, long payload) {
+        final long position = position(id);
+        file.putLong(position + 1, payload);
+        file.putByte(position, type);
+    }
+
+    @Override
+    public void prepareConcurrentReads(int size) {
+        file.prepareConcurrentReads();
+    }
+
+    @Override
+    public void force() {
+        file.force();
+    }
+
+    @Override
+    public void close() {
+        file.close();
+    }
+
+    private static long position(int id) {
+        return (long) id * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,133 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.nio.file.Path;
+import java.util.function.IntConsumer;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Reverse edges kept in {@link MappedFile}s as a linked list of dependents per cell id, so opening reads
+ * nothing but the state and a change pages in only the lists of the cells it touches:
+ * 1) "dependents.dat": the state, then the first node of every cell id, 0 for none
+ * 2) "dependent-nodes.dat": the count of nodes and the first free one, then a node per edge: dependent and next node.
+ * Removed nodes are kept in the free list and taken by the next edges added.
+ *
+ * A put changes the cell record and its edges one after another, so the edges are trusted only if the graph was
+ * closed: the state is forced as open before the first change and as closed once everything else is forced.
+ */
+public class MappedDependencyGraph implements DependencyGraph {
+    private static final int OPEN = 1;
+    private static final int CLOSED = 2;
+    private static final int NODE_SIZE = 8;
+
+    private final MappedFile heads;
+    private final MappedFile nodes;
+    private final boolean intact;
+    private int nodesCount;
+    private int firstFree;
+
+    public MappedDependencyGraph(Path directory) {
+        this.heads = new MappedFile(directory.resolve("dependents.dat"), Integer.BYTES);
+        this.nodes = new MappedFile(directory.resolve("dependent-nodes.dat"), NODE_SIZE);
+        this.intact = heads.getInt(0) == CLOSED;
+        this.nodesCount = nodes.getInt(0);
+        this.firstFree = nodes.getInt(4);
+        heads.putInt(0, OPEN);
+        heads.force();
+    }
+
+    @Override
+    public void addDependent(int id, int dependentId) {
+        final int node;
+        if (firstFree != 0) {
+            node = firstFree;
+            firstFree = nodes.getInt(next(node));
+        } else {
+            node = ++nodesCount;
+        }
+        nodes.putInt(dependent(node), dependentId);
+        nodes.putInt(next(node), heads.getInt(head(id)));
+        heads.putInt(head(id), node);
+        writeCounts();
+    }
+
+    @Override
+    public void removeDependent(int id, int dependentId) {
+        int previous = 0;
+        for (int node = heads.getInt(head(id)); node != 0; node = nodes.getInt(next(node))) {
+            if (nodes.getInt(dependent(node)) == dependentId) {
+                final int following = nodes.getInt(next(node));
+                if (previous == 0) {
+                    heads.putInt(head(id), following);
+                } else {
+                    nodes.putInt(next(previous), following);
+                }
+                nodes.putInt(next(node), firstFree);
+                firstFree = node;
+                writeCounts();
+                return;
+            }
+            previous = node;
+        }
+    }
+
+    @Override
+    public void forEachDependent(int id, IntConsumer consumer) {
+        for (int node = heads.getInt(head(id)); node != 0; node = nodes.getInt(next(node))) {
+            consumer.accept(nodes.getInt(dependent(node)));
+        }
+    }
+
+    @Override
+    public boolean isIntact() {
+        return intact;
+    }
+
+    @Override
+    public void clear() {
+        for (long position = Integer.BYTES, size = heads.size(); position < size; position += Integer.BYTES) {
+            heads.putInt(position, 0);
+        }
+        nodesCount = 0;
+        firstFree = 0;
+        writeCounts();
+    }
+
+    @Override
+    public void prepareConcurrentReads() {
+        heads.prepareConcurrentReads();
+        nodes.prepareConcurrentReads();
+    }
+
+    @Override
+    public void force() {
+        nodes.force();
+        heads.force();
+    }
+
+    @Override
+    public void close() {
+        force();
+        heads.putInt(0, CLOSED);
+        nodes.close();
+        heads.close();
+    }
+
+    private void writeCounts() {
+        nodes.putInt(0, nodesCount);
+        nodes.putInt(4, firstFree);
+    }
+
+    private static long head(int id) {
+        return (id + 1L) * Integer.BYTES;
+    }
+
+    private static long dependent(int node) {
+        return (long) node * NODE_SIZE;
+    }
+
+    private static long next(int node) {
+        return (long) node * NODE_SIZE + 4;
+    }
+}
@@ -0,0 +1,151 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import lombok.SneakyThrows;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * File of fixed size records mapped by segments of {@link #SEGMENT_RECORDS} records, so a value read or written
+ * within a record never crosses segments. Segments are mapped on first access, only the touched ones are paged in.
+ * The first segment is mapped as large as the data only, doubling from {@link #FIRST_SEGMENT_RECORDS} records,
+ * so a small file stays small; the following ones are mapped whole. Bytes never written read as 0.
+ *
+ * Written values reach the disk whenever the OS writes the pages back, and for sure once {@link #force()} returns.
+ */
+class MappedFile {
+    private static final int SEGMENT_BITS = 22;
+    private static final int SEGMENT_RECORDS = 1 << SEGMENT_BITS;
+    private static final int FIRST_SEGMENT_RECORDS = 1 << 9;
+
+    private final FileChannel channel;
+    private final int recordSize;
+    private final long segmentSize;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[1];
+
+    @SneakyThrows
+    MappedFile(Path file, int recordSize) {
+        this.channel = FileChannel.open(file, CREATE, READ, WRITE);
+        this.recordSize = recordSize;
+        this.segmentSize = (long) SEGMENT_RECORDS * recordSize;
+    }
+
+    byte getByte(long position) {
+        final MappedByteBuffer segment = segmentIfPresent(position, Byte.BYTES);
+        return segment == null ? 0 : segment.get(offset(position));
+    }
+
+    int getInt(long position) {
+        final MappedByteBuffer segment = segmentIfPresent(position, Integer.BYTES);
+        return segment == null ? 0 : segment.getInt(offset(position));
+    }
+
+    long getLong(long position) {
+        final MappedByteBuffer segment = segmentIfPresent(position, Long.BYTES);
+        return segment == null ? 0L : segment.getLong(offset(position));
+    }
+
+    void putByte(long position, byte value) {
+        segment(position, Byte.BYTES).put(offset(position), value);
+    }
+
+    void putInt(long position, int value) {
+        segment(position, Integer.BYTES).putInt(offset(position), value);
+    }
+
+    void putLong(long position, long value) {
+        segment(position, Long.BYTES).putLong(offset(position), value);
+    }
+
+    @SneakyThrows
+    long size() {
+        return channel.size();
+    }
+
+    /**
+     * Maps the whole file, after that values within it can be read from different threads.
+     */
+    @SneakyThrows
+    void prepareConcurrentReads() {
+        final long size = channel.size();
+        for (long position = 0; position < size; position += segmentSize) {
+            segment(position, (int) Math.min(segmentSize, size - position));
+        }
+    }
+
+    @SneakyThrows
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    @SneakyThrows
+    void close() {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Segments are mapped on read only for values within the file, reading beyond it maps nothing.
+     */
+    @SneakyThrows
+    private MappedByteBuffer segmentIfPresent(long position, int length) {
+        final MappedByteBuffer segment = mapped(position, length);
+        if (segment != null) {
+            return segment;
+        }
+        return position + length > channel.size() ? null : segment(position, length);
+    }
+
+    @SneakyThrows
+    private MappedByteBuffer segment(long position, int length) {
+        final MappedByteBuffer segment = mapped(position, length);
+        if (segment != null) {
+            return segment;
+        }
+
+        final int index = (int) (position / segmentSize);
+        if (index >= segments.length) {
+            segments = Arrays.copyOf(segments, Math.max(segments.length << 1, index + 1));
+        }
+        long capacity = segmentSize;
+        if (index == 0) {
+            final long records = (offset(position) + length + recordSize - 1) / recordSize;
+            long firstRecords = FIRST_SEGMENT_RECORDS;
+            while (firstRecords < records || firstRecords * recordSize < Math.min(channel.size(), segmentSize)) {
+                firstRecords <<= 1;
+            }
+            capacity = Math.min(firstRecords, SEGMENT_RECORDS) * recordSize;
+        }
+        segments[index] = channel.map(FileChannel.MapMode.READ_WRITE, index * segmentSize, capacity);
+        return segments[index];
+    }
+
+    /**
+     * The segment of the value if it is mapped far enough to hold it, null otherwise.
+     */
+    private MappedByteBuffer mapped(long position, int length) {
+        final int index = (int) (position / segmentSize);
+        if (index >= segments.length) {
+            return null;
+        }
+        final MappedByteBuffer segment = segments[index];
+        return segment != null && offset(position) + length <= segment.capacity() ? segment : null;
+    }
+
+    private int offset(long position) {
+        return (int) (position % segmentSize);
+    }
+}
@@ -0,0 +1,13 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * How a sheet treats values not fitting a long: {@link #LONG} evaluates them to null,
+ * {@link #BIG_DECIMAL} also calculates them exactly for {@link GoogleSheetImpl#evaluateExact(String)}.
+ */
+public enum NumericMode {
+    LONG,
+    BIG_DECIMAL
+}
@@ -0,0 +1,331 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import ru.kmoiseev.archive.googlesheet.impl.expression.RangeAggregate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Everything range aggregates need: a {@link ColumnTree} per column with the states of A1-style cells,
+ * and the range cells watching each column, which are invalidated when any cell of their range is.
+ * Watchers of a column are kept by their rows in an {@link IntervalTree}; ranges wider than
+ * {@link #WIDE_RANGE_COLUMNS} columns are kept by their columns in a single one instead.
+ *
+ * Only columns some range watches have a tree, so a sheet without ranges pays nothing for them. The non-empty
+ * A1-style cells are listed by column once, when the cells of a range are first needed, and kept listed from then
+ * on, so a column starting being watched indexes just its own cells, and one no range watches any more drops its
+ * tree. Until then ranges are only watched, so a sheet opened with range cells does not read all of its cells.
+ */
+public class RangeIndex {
+    private static final int WIDE_RANGE_COLUMNS = 64;
+    private static final byte LISTED = 1;
+
+    private final CellsStorage cellsStorage;
+    private final TreeMap<Integer, ColumnTree> columns = new TreeMap<>();
+    private final Map<Integer, IntervalTree> watchersByColumn = new HashMap<>();
+    private final IntervalTree wideWatchers = new IntervalTree();
+    private final Map<Integer, RangeAggregate> watchedRanges = new HashMap<>();
+    /**
+     * Count of the ranges watching the columns, by the first column of every run of columns with the same count.
+     */
+    private final TreeMap<Integer, Integer> watchCounts = new TreeMap<>();
+    private final IntStack wideCandidates = new IntStack();
+    private TreeMap<Integer, IntStack> cellsByColumn;
+    private final ByteBlocks listed = new ByteBlocks();
+    private IntConsumer indexed;
+
+    public RangeIndex(CellsStorage cellsStorage) {
+        this.cellsStorage = cellsStorage;
+    }
+
+    /**
+     * @param indexed gets the cells of the columns starting being watched, to mirror their states,
+     *                once the cells are listed
+     */
+    public void watch(int id, RangeAggregate range, IntConsumer indexed) {
+        this.indexed = indexed;
+        watchedRanges.put(id, range);
+        if (isWide(range)) {
+            wideWatchers.add(range.getFromColumn(), range.getToColumn(), id);
+        } else {
+            for (int column = range.getFromColumn(); column <= range.getToColumn(); column++) {
+                watchersByColumn.computeIfAbsent(column, key -> new IntervalTree())
+                        .add(range.getFromRow(), range.getToRow(), id);
+            }
+        }
+
+        final List<int[]> runs = addWatchCount(range.getFromColumn(), range.getToColumn(), 1);
+        if (cellsByColumn != null) {
+            for (int[] run : runs) {
+                index(run[0], run[1]);
+            }
+        }
+    }
+
+    public void unwatch(int id) {
+        final RangeAggregate range = watchedRanges.remove(id);
+        if (range == null) {
+            return;
+        }
+        if (isWide(range)) {
+            wideWatchers.remove(range.getFromColumn(), id);
+        } else {
+            for (int column = range.getFromColumn(); column <= range.getToColumn(); column++) {
+                final IntervalTree watchers = watchersByColumn.get(column);
+                watchers.remove(range.getFromRow(), id);
+                if (watchers.isEmpty()) {
+                    watchersByColumn.remove(column);
+                }
+            }
+        }
+
+        for (int[] run : addWatchCount(range.getFromColumn(), range.getToColumn(), -1)) {
+            columns.subMap(run[0], true, run[1], true).clear();
+        }
+    }
+
+    /**
+     * Pushes ids of the range cells whose ranges contain the cell.
+     */
+    public void collectWatchers(int id, IntStack out) {
+        if (watchedRanges.isEmpty()) {
+            return;
+        }
+        final long coordinates = cellsStorage.getCoordinates(id);
+        if (coordinates == CellCoordinates.NONE) {
+            return;
+        }
+        final int column = CellCoordinates.column(coordinates);
+        final int row = CellCoordinates.row(coordinates);
+        final IntervalTree watchers = watchersByColumn.get(column);
+        if (watchers != null) {
+            watchers.collect(row, out);
+        }
+        wideWatchers.collect(column, wideCandidates);
+        while (!wideCandidates.isEmpty()) {
+            final int watcher = wideCandidates.pop();
+            if (watchedRanges.get(watcher).contains(column, row)) {
+                out.push(watcher);
+            }
+        }
+    }
+
+    public void onDirty(int id) {
+        if (cellsByColumn == null) {
+            return;
+        }
+        final long coordinates = cellsStorage.getCoordinates(id);
+        if (coordinates == CellCoordinates.NONE) {
+            return;
+        }
+        final int column = CellCoordinates.column(coordinates);
+        if (listed.get(id) != LISTED) {
+            list(id, column);
+        }
+        ColumnTree tree = columns.get(column);
+        if (tree == null) {
+            if (watchCount(column) == 0) {
+                return;
+            }
+            tree = new ColumnTree();
+            columns.put(column, tree);
+        }
+        tree.setDirty(CellCoordinates.row(coordinates), id);
+    }
+
+    public void onEvaluated(int id, long value) {
+        final ColumnTree tree = treeOf(id);
+        if (tree != null) {
+            tree.setValue(CellCoordinates.row(cellsStorage.getCoordinates(id)), value);
+        }
+    }
+
+    public void onCycled(int id) {
+        final ColumnTree tree = treeOf(id);
+        if (tree != null) {
+            tree.setCycled(CellCoordinates.row(cellsStorage.getCoordinates(id)));
+        }
+    }
+
+    public void onOverflowed(int id) {
+        final ColumnTree tree = treeOf(id);
+        if (tree != null) {
+            tree.setOverflowed(CellCoordinates.row(cellsStorage.getCoordinates(id)));
+        }
+    }
+
+    public void onCleared(int id) {
+        final ColumnTree tree = treeOf(id);
+        if (tree != null) {
+            tree.setEmpty(CellCoordinates.row(cellsStorage.getCoordinates(id)));
+        }
+    }
+
+    private ColumnTree treeOf(int id) {
+        if (columns.isEmpty()) {
+            return null;
+        }
+        final long coordinates = cellsStorage.getCoordinates(id);
+        return coordinates == CellCoordinates.NONE ? null : columns.get(CellCoordinates.column(coordinates));
+    }
+
+    /**
+     * The only pass over all the cells, made when the cells of a range are first needed;
+     * the columns watched by then get their trees.
+     */
+    private void listCells() {
+        if (cellsByColumn != null) {
+            return;
+        }
+        cellsByColumn = new TreeMap<>();
+        for (int id = 0, size = cellsStorage.size(); id < size; id++) {
+            final long coordinates = cellsStorage.getCoordinates(id);
+            if (coordinates != CellCoordinates.NONE && cellsStorage.getType(id) != CellType.EMPTY) {
+                list(id, CellCoordinates.column(coordinates));
+            }
+        }
+        for (Map.Entry<Integer, Integer> run : watchCounts.entrySet()) {
+            if (run.getValue() > 0) {
+                index(run.getKey(), watchCounts.higherKey(run.getKey()) - 1);
+            }
+        }
+    }
+
+    private void list(int id, int column) {
+        cellsByColumn.computeIfAbsent(column, key -> new IntStack()).push(id);
+        listed.set(id, LISTED);
+    }
+
+    /**
+     * Creates the trees of the listed columns within the run, which has just started being watched.
+     */
+    private void index(int fromColumn, int toColumn) {
+        for (Map.Entry<Integer, IntStack> columnCells : cellsByColumn.subMap(fromColumn, true, toColumn, true)
+                .entrySet()) {
+            columns.put(columnCells.getKey(), new ColumnTree());
+            final IntStack cells = columnCells.getValue();
+            for (int i = 0; i < cells.size(); i++) {
+                if (cellsStorage.getType(cells.get(i)) != CellType.EMPTY) {
+                    indexed.accept(cells.get(i));
+                }
+            }
+        }
+    }
+
+    private int watchCount(int column) {
+        final Map.Entry<Integer, Integer> run = watchCounts.floorEntry(column);
+        return run == null ? 0 : run.getValue();
+    }
+
+    /**
+     * Adds the delta to the watch counts of the columns.
+     *
+     * @return runs of columns, first and last, whose count has just become or stopped being 0
+     */
+    private List<int[]> addWatchCount(int fromColumn, int toColumn, int delta) {
+        splitRun(fromColumn);
+        splitRun(toColumn + 1);
+        final List<int[]> changed = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> run : watchCounts.subMap(fromColumn, true, toColumn, true).entrySet()) {
+            final int count = run.getValue();
+            if ((count == 0) != (count + delta == 0)) {
+                changed.add(new int[]{run.getKey(), watchCounts.higherKey(run.getKey()) - 1});
+            }
+            run.setValue(count + delta);
+        }
+        mergeRun(toColumn + 1);
+        mergeRun(fromColumn);
+        return changed;
+    }
+
+    private void splitRun(int column) {
+        if (!watchCounts.containsKey(column)) {
+            watchCounts.put(column, watchCount(column));
+        }
+    }
+
+    /**
+     * Drops the run starting at the column if it has the count of the run before, or 0 with none before.
+     */
+    private void mergeRun(int column) {
+        final Integer count = watchCounts.get(column);
+        final Map.Entry<Integer, Integer> before = watchCounts.lowerEntry(column);
+        if (count != null && count == (before == null ? 0 : before.getValue())) {
+            watchCounts.remove(column);
+        }
+    }
+
+    /**
+     * Gives the non-empty A1-style cells of the range, listing the cells if they are not yet.
+     */
+    public void forEachCell(RangeAggregate range, IntConsumer consumer) {
+        listCells();
+        for (IntStack cells : cellsByColumn.subMap(range.getFromColumn(), true, range.getToColumn(), true).values()) {
+            for (int i = 0; i < cells.size(); i++) {
+                final int id = cells.get(i);
+                final long coordinates = cellsStorage.getCoordinates(id);
+                if (cellsStorage.getType(id) != CellType.EMPTY
+                        && range.contains(CellCoordinates.column(coordinates), CellCoordinates.row(coordinates))) {
+                    consumer.accept(id);
+                }
+            }
+        }
+    }
+
+    public void collectDirty(RangeAggregate range, IntStack out) {
+        for (ColumnTree column : columnsOf(range)) {
+            column.collectDirty(range.getFromRow(), range.getToRow(), out);
+        }
+    }
+
+    public boolean hasCycled(RangeAggregate range) {
+        for (ColumnTree column : columnsOf(range)) {
+            if (column.countCycled(range.getFromRow(), range.getToRow()) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void collectOverflowed(RangeAggregate range, IntStack out) {
+        for (ColumnTree column : columnsOf(range)) {
+            column.collectOverflowed(range.getFromRow(), range.getToRow(), out);
+        }
+    }
+
+    public boolean hasOverflowed(RangeAggregate range) {
+        for (ColumnTree column : columnsOf(range)) {
+            if (column.countOverflowed(range.getFromRow(), range.getToRow()) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Aggregate of the evaluated cells of the range, all the cells in it must be evaluated, cycled or overflowed.
+     */
+    public ColumnTree.Accumulator aggregate(RangeAggregate range) {
+        final ColumnTree.Accumulator accumulator = new ColumnTree.Accumulator();
+        for (ColumnTree column : columnsOf(range)) {
+            column.aggregate(range.getFromRow(), range.getToRow(), accumulator);
+        }
+        return accumulator;
+    }
+
+    private Iterable<ColumnTree> columnsOf(RangeAggregate range) {
+        listCells();
+        return columns.subMap(range.getFromColumn(), true, range.getToColumn(), true).values();
+    }
+
+    private static boolean isWide(RangeAggregate range) {
+        return range.getToColumn() - range.getFromColumn() >= WIDE_RANGE_COLUMNS;
+    }
+}
@@ -0,0 +1,169 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Recalculates the whole sheet level by level in topological order: a level holds the cells whose references
+ * are all calculated on previous levels, so cells of one level are independent and calculated in parallel.
+ * Range cells are left out of the levels, as well as everything depending on them or being in a cycle;
+ * those are evaluated one by one afterwards.
+ * A bounded values cache keeps the calculated values until the levels are done and is trimmed afterwards.
+ */
+public class Recalculator {
+    private static final int SEQUENTIAL_THRESHOLD = 1024;
+
+    private final CellsStorage cellsStorage;
+    private final DependencyGraph dependencyGraph;
+    private final ValuesCache valuesCache;
+    private final Evaluator evaluator;
+    private final ForkJoinPool pool;
+
+    public Recalculator(CellsStorage cellsStorage, DependencyGraph dependencyGraph, ValuesCache valuesCache,
+                        Evaluator evaluator, ForkJoinPool pool) {
+        this.cellsStorage = cellsStorage;
+        this.dependencyGraph = dependencyGraph;
+        this.valuesCache = valuesCache;
+        this.evaluator = evaluator;
+        this.pool = pool;
+    }
+
+    public void recalculateAll() {
+        final int size = cellsStorage.size();
+        valuesCache.ensureCapacity(size);
+        cellsStorage.prepareConcurrentReads();
+        dependencyGraph.prepareConcurrentReads();
+
+        final AtomicIntegerArray pendingReferences = new AtomicIntegerArray(size);
+        final IntStack firstLevel = new IntStack();
+        for (int id = 0; id < size; id++) {
+            if (cellsStorage.getType(id) == CellType.EMPTY) {
+                continue;
+            }
+            valuesCache.markDirty(id);
+            final int pending = countNonEmptyReferences(id);
+            pendingReferences.set(id, pending);
+            if (pending == 0) {
+                firstLevel.push(id);
+            }
+        }
+
+        int[] level = firstLevel.toArray();
+        while (level.length > 0) {
+            level = pool.invoke(new LevelTask(level, 0, level.length, pendingReferences));
+        }
+
+        for (int id = 0; id < size; id++) {
+            if (cellsStorage.getType(id) != CellType.EMPTY && valuesCache.isDirty(id)) {
+                evaluator.evaluate(id);
+            }
+        }
+        valuesCache.evictExcess();
+    }
+
+    private int countNonEmptyReferences(int id) {
+        switch (cellsStorage.getType(id)) {
+            case REFERENCE:
+                return nonEmpty(cellsStorage.getReference(id));
+            case SUM:
+                return nonEmpty(cellsStorage.getLeft(id)) + nonEmpty(cellsStorage.getRight(id));
+            case RANGE:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    private int nonEmpty(int id) {
+        return cellsStorage.getType(id) == CellType.EMPTY ? 0 : 1;
+    }
+
+    private void calculate(int id) {
+        switch (cellsStorage.getType(id)) {
+            case NUMBER:
+                valuesCache.put(id, cellsStorage.getNumber(id));
+                return;
+            case REFERENCE:
+                calculate(id, cellsStorage.getReference(id), cellsStorage.getReference(id));
+                return;
+            case SUM:
+                calculate(id, cellsStorage.getLeft(id), cellsStorage.getRight(id));
+                return;
+            case UNDEFINED:
+                valuesCache.putCycled(id);
+                return;
+            default:
+                throw new IllegalStateException("Empty cells are not calculated");
+        }
+    }
+
+    private void calculate(int id, int left, int right) {
+        if (valuesCache.isCycled(left) || valuesCache.isCycled(right)) {
+            valuesCache.putCycled(id);
+        } else if (valuesCache.isOverflowed(left) || valuesCache.isOverflowed(right)) {
+            valuesCache.putOverflowed(id);
+        } else if (cellsStorage.getType(id) != CellType.SUM) {
+            valuesCache.put(id, valueOf(left));
+        } else {
+            try {
+                valuesCache.put(id, Math.addExact(valueOf(left), valueOf(right)));
+            } catch (ArithmeticException overflow) {
+                valuesCache.putOverflowed(id);
+            }
+        }
+    }
+
+    private long valueOf(int id) {
+        return cellsStorage.getType(id) == CellType.EMPTY ? 0L : valuesCache.get(id);
+    }
+
+    /**
+     * Calculates a slice of a level and returns the cells which became ready for the next level.
+     */
+    private class LevelTask extends RecursiveTask<int[]> {
+        private final int[] level;
+        private final int from;
+        private final int to;
+        private final AtomicIntegerArray pendingReferences;
+
+        private LevelTask(int[] level, int from, int to, AtomicIntegerArray pendingReferences) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.pendingReferences = pendingReferences;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from > SEQUENTIAL_THRESHOLD) {
+                final int middle = (from + to) >>> 1;
+                final LevelTask left = new LevelTask(level, from, middle, pendingReferences);
+                left.fork();
+                final int[] right = new LevelTask(level, middle, to, pendingReferences).compute();
+                final int[] leftResult = left.join();
+                final int[] merged = Arrays.copyOf(leftResult, leftResult.length + right.length);
+                System.arraycopy(right, 0, merged, leftResult.length, right.length);
+                return merged;
+            }
+
+            final IntStack nextLevel = new IntStack();
+            final IntConsumer referenceCalculated = dependent -> {
+                if (pendingReferences.decrementAndGet(dependent) == 0) {
+                    nextLevel.push(dependent);
+                }
+            };
+            for (int i = from; i < to; i++) {
+                final int id = level[i];
+                calculate(id);
+                dependencyGraph.forEachDependent(id, referenceCalculated);
+            }
+            return nextLevel.toArray();
+        }
+    }
+}
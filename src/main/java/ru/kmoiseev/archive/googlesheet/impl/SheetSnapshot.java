@@ -0,0 +1,92 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static ru.kmoiseev.archive.googlesheet.impl.Blocks.BLOCK_SIZE;
+import static ru.kmoiseev.archive.googlesheet.impl.Blocks.block;
+import static ru.kmoiseev.archive.googlesheet.impl.Blocks.capacityFor;
+import static ru.kmoiseev.archive.googlesheet.impl.Blocks.offset;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Immutable evaluated values of a sheet version. A new version shares all the value blocks
+ * of the previous one except the blocks holding changed cells, which are copied.
+ */
+public class SheetSnapshot {
+    private final long version;
+    private final int size;
+    private final Map<String, Integer> idsByAddress;
+    private final long[][] values;
+    private final boolean[][] cycled;
+
+    private SheetSnapshot(long version, int size, Map<String, Integer> idsByAddress,
+                          long[][] values, boolean[][] cycled) {
+        this.version = version;
+        this.size = size;
+        this.idsByAddress = idsByAddress;
+        this.values = values;
+        this.cycled = cycled;
+    }
+
+    static SheetSnapshot empty(Map<String, Integer> idsByAddress) {
+        return new SheetSnapshot(0, 0, idsByAddress, new long[1][], new boolean[1][]);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Long evaluate(String address) {
+        if (!GoogleSheetImpl.checkAddress(address)) {
+            return null;
+        }
+
+        final Integer id = idsByAddress.get(address);
+        if (id == null || id >= size) {
+            return 0L;
+        }
+
+        final int block = block(id);
+        if (values[block] == null) {
+            return 0L;
+        }
+        return cycled[block][offset(id)] ? null : values[block][offset(id)];
+    }
+
+    Builder toBuilder(int newSize) {
+        return new Builder(newSize);
+    }
+
+    class Builder {
+        private final int newSize;
+        private final long[][] newValues;
+        private final boolean[][] newCycled;
+        private final boolean[] copied;
+
+        private Builder(int newSize) {
+            this.newSize = newSize;
+            final int capacity = newSize == 0 ? values.length : capacityFor(values.length, block(newSize - 1));
+            this.newValues = Arrays.copyOf(values, capacity);
+            this.newCycled = Arrays.copyOf(cycled, capacity);
+            this.copied = new boolean[capacity];
+        }
+
+        void set(int id, Long value) {
+            final int block = block(id);
+            if (!copied[block]) {
+                newValues[block] = newValues[block] == null ? new long[BLOCK_SIZE] : newValues[block].clone();
+                newCycled[block] = newCycled[block] == null ? new boolean[BLOCK_SIZE] : newCycled[block].clone();
+                copied[block] = true;
+            }
+            newValues[block][offset(id)] = value == null ? 0L : value;
+            newCycled[block][offset(id)] = value == null;
+        }
+
+        SheetSnapshot build() {
+            return new SheetSnapshot(version + 1, newSize, idsByAddress, newValues, newCycled);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import ru.kmoiseev.archive.googlesheet.Subscription;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Listeners of cells by cell id, together with the value they were last told about,
+ * so they are called only when the value is really different.
+ */
+public class Subscriptions {
+    private static final byte SUBSCRIBED = 1;
+
+    private final ByteBlocks subscribed = new ByteBlocks();
+    private final Map<Integer, Subscribers> subscribersById = new HashMap<>();
+
+    public boolean isSubscribed(int id) {
+        return subscribed.get(id) == SUBSCRIBED;
+    }
+
+    public Subscription subscribe(int id, Long currentValue, Consumer<Long> listener) {
+        final Subscribers subscribers = subscribersById.computeIfAbsent(id, key -> new Subscribers(currentValue));
+        subscribers.listeners.add(listener);
+        subscribed.set(id, SUBSCRIBED);
+        return () -> unsubscribe(id, listener);
+    }
+
+    /**
+     * Calls the listeners of the cell if the value differs from the one they were last called with.
+     */
+    public void changed(int id, Long value) {
+        final Subscribers subscribers = subscribersById.get(id);
+        if (subscribers == null || Objects.equals(subscribers.lastValue, value)) {
+            return;
+        }
+        subscribers.lastValue = value;
+        subscribers.listeners.forEach(listener -> listener.accept(value));
+    }
+
+    private void unsubscribe(int id, Consumer<Long> listener) {
+        final Subscribers subscribers = subscribersById.get(id);
+        if (subscribers == null) {
+            return;
+        }
+        subscribers.listeners.remove(listener);
+        if (subscribers.listeners.isEmpty()) {
+            subscribersById.remove(id);
+            subscribed.set(id, (byte) 0);
+        }
+    }
+
+    private static class Subscribers {
+        private final List<Consumer<Long>> listeners = new CopyOnWriteArrayList<>();
+        private Long lastValue;
+
+        private Subscribers(Long lastValue) {
+            this.lastValue = lastValue;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.util.Arrays;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * W-TinyLFU eviction over non-negative long keys: new keys enter a small LRU window, then compete
+ * by estimated frequency with the least recently used key of the probation segment of the main space,
+ * and keys accessed again while on probation are promoted to the protected segment.
+ * Frequencies are estimated by a count-min sketch of 4 bit counters which are halved periodically,
+ * so the cache follows the popularity changing over time.
+ *
+ * Every cached key has a node, which stays the same while the key is cached; subclasses keep their values
+ * in arrays by node, grown in {@link #growNodes(int)}. Not thread safe.
+ */
+public abstract class TinyLfuPolicy {
+    protected static final int NONE = -1;
+    protected static final int INITIAL_NODES = 16;
+    private static final long NO_KEY = -1;
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    private final int maximumSize;
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final FrequencySketch sketch;
+
+    private long[] keys = new long[INITIAL_NODES];
+    private int[] previous = new int[INITIAL_NODES];
+    private int[] next = new int[INITIAL_NODES];
+    private byte[] queues = new byte[INITIAL_NODES];
+    private int freeNode = NONE;
+    private int nodesUsed;
+
+    private final int[] heads = {NONE, NONE, NONE};
+    private final int[] tails = {NONE, NONE, NONE};
+    private final int[] sizes = new int[3];
+
+    private long[] slotKeys = newSlots(INITIAL_NODES << 1);
+    private int[] slotNodes = new int[INITIAL_NODES << 1];
+    private int size;
+
+    protected TinyLfuPolicy(int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.windowCapacity = Math.max(1, maximumSize / 100);
+        this.protectedCapacity = (maximumSize - windowCapacity) * 4 / 5;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Evicts keys over the maximum size, telling the subclass about each in {@link #onEvicted(long, int)}.
+     */
+    public void evictExcess() {
+        while (sizes[WINDOW] > windowCapacity) {
+            final int candidate = heads[WINDOW];
+            unlink(candidate);
+            addLast(PROBATION, candidate);
+        }
+
+        while (size > maximumSize) {
+            final byte queue = sizes[PROBATION] > 0 ? PROBATION : PROTECTED;
+            final int victim = heads[queue];
+            final int candidate = tails[queue];
+            if (candidate == victim || sketch.frequency(keys[candidate]) <= sketch.frequency(keys[victim])) {
+                evict(candidate);
+            } else {
+                evict(victim);
+            }
+        }
+    }
+
+    /**
+     * Node of the key, {@link #NONE} if it is not cached.
+     */
+    protected final int findNode(long key) {
+        final int mask = slotKeys.length - 1;
+        for (int slot = hash(key) & mask; slotKeys[slot] != NO_KEY; slot = (slot + 1) & mask) {
+            if (slotKeys[slot] == key) {
+                return slotNodes[slot];
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Caches the key, which must not be cached yet, in the window and returns its node.
+     */
+    protected final int addNode(long key) {
+        final int node = allocateNode();
+        keys[node] = key;
+        addLast(WINDOW, node);
+        insertSlot(key, node);
+        size++;
+        return node;
+    }
+
+    protected final void removeNode(int node) {
+        removeSlot(keys[node]);
+        unlink(node);
+        next[node] = freeNode;
+        freeNode = node;
+        size--;
+    }
+
+    /**
+     * Counts an access to the key, cached or not, in its estimated frequency.
+     */
+    protected final void recordAccess(long key) {
+        sketch.increment(key);
+    }
+
+    /**
+     * Moves the node to the most recently used end of its segment, promoting it from probation.
+     */
+    protected final void touch(int node) {
+        final byte queue = queues[node];
+        unlink(node);
+        if (queue != PROBATION) {
+            addLast(queue, node);
+            return;
+        }
+        addLast(PROTECTED, node);
+        if (sizes[PROTECTED] > protectedCapacity) {
+            final int demoted = heads[PROTECTED];
+            unlink(demoted);
+            addLast(PROBATION, demoted);
+        }
+    }
+
+    /**
+     * The key has been evicted and its node freed, to be reused by the next added key.
+     */
+    protected abstract void onEvicted(long key, int node);
+
+    /**
+     * Nodes up to the capacity may be used from now on.
+     */
+    protected abstract void growNodes(int capacity);
+
+    private void evict(int node) {
+        final long key = keys[node];
+        removeNode(node);
+        onEvicted(key, node);
+    }
+
+    private void addLast(byte queue, int node) {
+        queues[node] = queue;
+        previous[node] = tails[queue];
+        next[node] = NONE;
+        if (tails[queue] == NONE) {
+            heads[queue] = node;
+        } else {
+            next[tails[queue]] = node;
+        }
+        tails[queue] = node;
+        sizes[queue]++;
+    }
+
+    private void unlink(int node) {
+        final byte queue = queues[node];
+        if (previous[node] == NONE) {
+            heads[queue] = next[node];
+        } else {
+            next[previous[node]] = next[node];
+        }
+        if (next[node] == NONE) {
+            tails[queue] = previous[node];
+        } else {
+            previous[next[node]] = previous[node];
+        }
+        sizes[queue]--;
+    }
+
+    private int allocateNode() {
+        if (freeNode != NONE) {
+            final int node = freeNode;
+            freeNode = next[node];
+            return node;
+        }
+        if (nodesUsed == keys.length) {
+            final int capacity = nodesUsed << 1;
+            keys = Arrays.copyOf(keys, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            next = Arrays.copyOf(next, capacity);
+            queues = Arrays.copyOf(queues, capacity);
+            growNodes(capacity);
+        }
+        return nodesUsed++;
+    }
+
+    private void insertSlot(long key, int node) {
+        if ((size + 1) << 1 > slotKeys.length) {
+            rehash(slotKeys.length << 1);
+        }
+        final int mask = slotKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (slotKeys[slot] != NO_KEY) {
+            slot = (slot + 1) & mask;
+        }
+        slotKeys[slot] = key;
+        slotNodes[slot] = node;
+    }
+
+    /**
+     * Linear probing removal shifting back the following entries of the same cluster, so no tombstones are needed.
+     */
+    private void removeSlot(long key) {
+        final int mask = slotKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (slotKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        int hole = slot;
+        for (int current = (hole + 1) & mask; slotKeys[current] != NO_KEY; current = (current + 1) & mask) {
+            final int home = hash(slotKeys[current]) & mask;
+            if (((current - home) & mask) >= ((current - hole) & mask)) {
+                slotKeys[hole] = slotKeys[current];
+                slotNodes[hole] = slotNodes[current];
+                hole = current;
+            }
+        }
+        slotKeys[hole] = NO_KEY;
+    }
+
+    private void rehash(int capacity) {
+        final long[] oldKeys = slotKeys;
+        final int[] oldNodes = slotNodes;
+        slotKeys = newSlots(capacity);
+        slotNodes = new int[capacity];
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != NO_KEY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (slotKeys[slot] != NO_KEY) {
+                    slot = (slot + 1) & mask;
+                }
+                slotKeys[slot] = oldKeys[i];
+                slotNodes[slot] = oldNodes[i];
+            }
+        }
+    }
+
+    private static long[] newSlots(int capacity) {
+        final long[] slots = new long[capacity];
+        Arrays.fill(slots, NO_KEY);
+        return slots;
+    }
+
+    private static int hash(long key) {
+        return (int) (key * 0x9E3779B97F4A7C15L >>> 32);
+    }
+
+    private static class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final long[] SEEDS = {
+                0x97CB3127A5F1D3E9L, 0xB3A4C9D18E5B7F21L, 0x5C8E1F6B2D4A9C37L, 0x3F1D6A85C7E2B94DL};
+        private static final int MAX_COUNT = 15;
+
+        private final byte[] counters;
+        private final int widthMask;
+        private final int resetSize;
+        private int additions;
+
+        private FrequencySketch(int maximumSize) {
+            final int width = Integer.highestOneBit(Math.max(16, maximumSize) - 1) << 1;
+            this.counters = new byte[width * DEPTH];
+            this.widthMask = width - 1;
+            this.resetSize = Math.max(16, maximumSize) * 10;
+        }
+
+        private void increment(long key) {
+            boolean incremented = false;
+            for (int row = 0; row < DEPTH; row++) {
+                final int index = index(key, row);
+                if (counters[index] < MAX_COUNT) {
+                    counters[index]++;
+                    incremented = true;
+                }
+            }
+            if (incremented && ++additions >= resetSize) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                additions >>= 1;
+            }
+        }
+
+        private int frequency(long key) {
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, counters[index(key, row)]);
+            }
+            return frequency;
+        }
+
+        private int index(long key, int row) {
+            long hash = (key + SEEDS[row]) * SEEDS[row];
+            hash ^= hash >>> 29;
+            return row * (widthMask + 1) + ((int) hash & widthMask);
+        }
+    }
+}
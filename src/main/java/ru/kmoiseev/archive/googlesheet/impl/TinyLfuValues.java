@@ -0,0 +1,62 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Bounded long values by cell id with {@link TinyLfuPolicy W-TinyLFU} eviction.
+ *
+ * Eviction is done only by {@link #evictExcess()}, so values put between two calls never disappear
+ * while they are still needed; the size may exceed the maximum in between.
+ */
+public class TinyLfuValues extends TinyLfuPolicy {
+    private final IntConsumer evictionListener;
+    private long[] values = new long[INITIAL_NODES];
+
+    public TinyLfuValues(int maximumSize, IntConsumer evictionListener) {
+        super(maximumSize);
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * The value must be present.
+     */
+    public long get(int id) {
+        final int node = findNode(id);
+        recordAccess(id);
+        touch(node);
+        return values[node];
+    }
+
+    public void put(int id, long value) {
+        final int existing = findNode(id);
+        if (existing != NONE) {
+            values[existing] = value;
+            return;
+        }
+
+        recordAccess(id);
+        final int node = addNode(id);
+        values[node] = value;
+    }
+
+    public void remove(int id) {
+        final int node = findNode(id);
+        if (node != NONE) {
+            removeNode(node);
+        }
+    }
+
+    @Override
+    protected void onEvicted(long key, int node) {
+        evictionListener.accept((int) key);
+    }
+
+    @Override
+    protected void growNodes(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+}
@@ -0,0 +1,251 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Evaluated values of the cells by cell id, together with the colour used while evaluating:
+ * dirty (white), in progress (grey), evaluated, cycled or overflowed (black).
+ * An overflowed cell has a value which does not fit a long, it is calculated with BigDecimal if needed at all.
+ * A cell is only evaluated after everything it refers to is, so a dirty cell never has evaluated dependents,
+ * range cells whose range contains it included. State changes of A1-style cells are mirrored into {@link RangeIndex}.
+ *
+ * When bounded, values are kept in {@link TinyLfuValues} instead of blocks per cell, and an evicted cell is
+ * neither dirty nor evaluated: its value is still valid and is calculated again on the next read.
+ */
+public class ValuesCache {
+    private static final byte DIRTY = 0;
+    private static final byte IN_PROGRESS = 1;
+    private static final byte EVALUATED = 2;
+    private static final byte CYCLED = 3;
+    private static final byte EVICTED = 4;
+    private static final byte OVERFLOWED = 5;
+
+    public static final int UNBOUNDED = -1;
+
+    private final LongBlocks values;
+    private final TinyLfuValues boundedValues;
+    private final ByteBlocks states = new ByteBlocks();
+    private final IntStack toInvalidate = new IntStack();
+    private final IntStack watchers = new IntStack();
+    private final DependencyGraph dependencyGraph;
+    private final RangeIndex rangeIndex;
+    private final IntConsumer invalidateDependent = this::invalidateDependent;
+    private IntConsumer[] invalidationListeners = new IntConsumer[0];
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ValuesCache(DependencyGraph dependencyGraph, RangeIndex rangeIndex) {
+        this(dependencyGraph, rangeIndex, UNBOUNDED);
+    }
+
+    /**
+     * @param maximumValues how many evaluated values are kept between evaluations, or {@link #UNBOUNDED}
+     */
+    public ValuesCache(DependencyGraph dependencyGraph, RangeIndex rangeIndex, int maximumValues) {
+        this.dependencyGraph = dependencyGraph;
+        this.rangeIndex = rangeIndex;
+        if (maximumValues == UNBOUNDED) {
+            this.values = new LongBlocks();
+            this.boundedValues = null;
+        } else {
+            this.values = null;
+            this.boundedValues = new TinyLfuValues(maximumValues, this::evicted);
+        }
+    }
+
+    /**
+     * The listener gets every invalidated cell id from now on.
+     */
+    public void addInvalidationListener(IntConsumer listener) {
+        invalidationListeners = Arrays.copyOf(invalidationListeners, invalidationListeners.length + 1);
+        invalidationListeners[invalidationListeners.length - 1] = listener;
+    }
+
+    public boolean isDirty(int id) {
+        return states.get(id) == DIRTY;
+    }
+
+    public boolean isInProgress(int id) {
+        return states.get(id) == IN_PROGRESS;
+    }
+
+    public boolean isEvaluated(int id) {
+        return states.get(id) == EVALUATED;
+    }
+
+    public boolean isCycled(int id) {
+        return states.get(id) == CYCLED;
+    }
+
+    public boolean isOverflowed(int id) {
+        return states.get(id) == OVERFLOWED;
+    }
+
+    /**
+     * Evaluated, cycled or overflowed, so the cell needs no evaluation and its references neither.
+     */
+    public boolean isCalculated(int id) {
+        final byte state = states.get(id);
+        return state == EVALUATED || state == CYCLED || state == OVERFLOWED;
+    }
+
+    /**
+     * Dirty or evicted, the value has to be calculated before it can be read.
+     */
+    public boolean needsEvaluation(int id) {
+        final byte state = states.get(id);
+        return state == DIRTY || state == EVICTED;
+    }
+
+    public long get(int id) {
+        if (boundedValues == null) {
+            return values.get(id);
+        }
+        synchronized (boundedValues) {
+            return boundedValues.get(id);
+        }
+    }
+
+    public void markDirty(int id) {
+        if (boundedValues != null && states.get(id) == EVALUATED) {
+            synchronized (boundedValues) {
+                boundedValues.remove(id);
+            }
+        }
+        states.set(id, DIRTY);
+        rangeIndex.onDirty(id);
+    }
+
+    public void markInProgress(int id) {
+        states.set(id, IN_PROGRESS);
+    }
+
+    public void put(int id, long value) {
+        if (boundedValues == null) {
+            values.set(id, value);
+        } else {
+            synchronized (boundedValues) {
+                boundedValues.put(id, value);
+            }
+        }
+        states.set(id, EVALUATED);
+        rangeIndex.onEvaluated(id, value);
+    }
+
+    public void putCycled(int id) {
+        states.set(id, CYCLED);
+        rangeIndex.onCycled(id);
+    }
+
+    public void putOverflowed(int id) {
+        states.set(id, OVERFLOWED);
+        rangeIndex.onOverflowed(id);
+    }
+
+    /**
+     * Mirrors the state of a cell into {@link RangeIndex} when its column starts being indexed.
+     * An evicted cell is indexed as dirty, so a range over it evaluates it again.
+     */
+    public void index(int id) {
+        rangeIndex.onDirty(id);
+        switch (states.get(id)) {
+            case EVALUATED:
+                rangeIndex.onEvaluated(id, get(id));
+                return;
+            case CYCLED:
+                rangeIndex.onCycled(id);
+                return;
+            case OVERFLOWED:
+                rangeIndex.onOverflowed(id);
+                return;
+            default:
+        }
+    }
+
+    public void ensureCapacity(int size) {
+        if (values != null) {
+            values.ensureCapacity(size);
+        }
+        states.ensureCapacity(size);
+    }
+
+    /**
+     * Evicts values over the bound; values put since the previous call are never evicted before it.
+     */
+    public void evictExcess() {
+        if (boundedValues != null) {
+            synchronized (boundedValues) {
+                boundedValues.evictExcess();
+            }
+        }
+    }
+
+    private void evicted(int id) {
+        states.set(id, EVICTED);
+        evictions.incrementAndGet();
+    }
+
+    public void recordRead(boolean hit) {
+        (hit ? hits : misses).incrementAndGet();
+    }
+
+    public CacheStats getStats() {
+        final int size;
+        if (boundedValues == null) {
+            size = UNBOUNDED;
+        } else {
+            synchronized (boundedValues) {
+                size = boundedValues.size();
+            }
+        }
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), size);
+    }
+
+    public void invalidate(int id) {
+        markDirty(id);
+        toInvalidate.push(id);
+        invalidateDependents();
+    }
+
+    /**
+     * Invalidates all the changed cells and their dependents in one pass, visiting every dependent once.
+     */
+    public void invalidate(IntStack changed) {
+        while (!changed.isEmpty()) {
+            final int id = changed.pop();
+            markDirty(id);
+            toInvalidate.push(id);
+        }
+        invalidateDependents();
+    }
+
+    private void invalidateDependents() {
+        while (!toInvalidate.isEmpty()) {
+            final int invalidated = toInvalidate.pop();
+            for (IntConsumer listener : invalidationListeners) {
+                listener.accept(invalidated);
+            }
+            dependencyGraph.forEachDependent(invalidated, invalidateDependent);
+            rangeIndex.collectWatchers(invalidated, watchers);
+            while (!watchers.isEmpty()) {
+                invalidateDependent(watchers.pop());
+            }
+        }
+    }
+
+    /**
+     * Evicted dependents are not dirty, so invalidation goes on through them.
+     */
+    private void invalidateDependent(int dependent) {
+        if (!isDirty(dependent)) {
+            markDirty(dependent);
+            toInvalidate.push(dependent);
+        }
+    }
+}
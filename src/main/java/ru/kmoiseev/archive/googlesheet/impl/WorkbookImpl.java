@@ -0,0 +1,586 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import ru.kmoiseev.archive.googlesheet.GoogleSheet;
+import ru.kmoiseev.archive.googlesheet.Subscription;
+import ru.kmoiseev.archive.googlesheet.Workbook;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Expression;
+import ru.kmoiseev.archive.googlesheet.impl.expression.RangeAggregate;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Reference;
+import ru.kmoiseev.archive.googlesheet.impl.expression.Sum;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static java.util.Objects.isNull;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Every sheet is a {@link ConcurrentGoogleSheet} of its own, so sheets are written and evaluated in parallel.
+ * A cell of another sheet is mirrored into the referring sheet as a proxy cell named by the qualified address,
+ * which joins the sheet's dependency graph like any other cell, follows the referred cell by a subscription
+ * and is emptied once no cell refers to it any more. A referred cell evaluating to null is mirrored
+ * as an {@link CellType#UNDEFINED} cell.
+ *
+ * Cycles are tracked per cell: sheets may refer to each other, but a put making a cycle of cells through
+ * several sheets is rejected, so a change pushed through the sheets never comes back. The cells reachable
+ * from the put ones are walked across the sheets under the sheet graph lock, which only puts adding or dropping
+ * proxies, or made in a sheet both referring to other sheets and referred by them, take; other puts hold
+ * just their sheet. Proxies notified of a change are only queued, and refreshed by the putting thread
+ * once it holds no lock, so no sheet lock is ever held while waiting for the sheet graph lock.
+ *
+ * Sheets are sharded by name over single daemon thread workers, batches of different shards are put in parallel.
+ */
+public class WorkbookImpl implements Workbook {
+    private static final int MAX_SHEET_NAME_LENGTH = 256;
+    private static final char SHEET_SEPARATOR = '!';
+    /**
+     * Proxies whose referred cells changed in puts of the thread, refreshed once the put releases its locks.
+     */
+    private static final ThreadLocal<Deque<Proxy>> STALE_PROXIES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final Map<String, WorkbookSheet> sheets = new ConcurrentHashMap<>();
+    private final ExecutorService[] shards;
+    private final Object sheetGraphLock = new Object();
+
+    public WorkbookImpl() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public WorkbookImpl(int shardsCount) {
+        if (shardsCount < 1) {
+            throw new IllegalArgumentException("Shards count must be positive: " + shardsCount);
+        }
+
+        this.shards = new ExecutorService[shardsCount];
+        for (int i = 0; i < shardsCount; i++) {
+            final String threadName = "workbook-shard-" + i;
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public GoogleSheet addSheet(String name) {
+        if (!checkSheetName(name)) {
+            return null;
+        }
+
+        final WorkbookSheet sheet = new WorkbookSheet(name, Math.floorMod(name.hashCode(), shards.length));
+        return sheets.putIfAbsent(name, sheet) == null ? sheet : null;
+    }
+
+    @Override
+    public GoogleSheet getSheet(String name) {
+        return isNull(name) ? null : sheets.get(name);
+    }
+
+    @Override
+    public boolean putValues(Map<String, Map<String, String>> valuesBySheet) {
+        if (valuesBySheet == null) {
+            return false;
+        }
+
+        final List<List<Map.Entry<String, Map<String, String>>>> valuesByShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            valuesByShard.add(new ArrayList<>());
+        }
+        for (Map.Entry<String, Map<String, String>> sheetAndValues : valuesBySheet.entrySet()) {
+            final WorkbookSheet sheet = sheetAndValues.getKey() == null ? null : sheets.get(sheetAndValues.getKey());
+            if (sheet == null) {
+                return false;
+            }
+            valuesByShard.get(sheet.shard).add(sheetAndValues);
+        }
+
+        final List<CompletableFuture<Boolean>> puts = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            final List<Map.Entry<String, Map<String, String>>> shardValues = valuesByShard.get(i);
+            if (!shardValues.isEmpty()) {
+                puts.add(CompletableFuture.supplyAsync(() -> putValues(shardValues), shards[i]));
+            }
+        }
+
+        boolean allPut = true;
+        for (CompletableFuture<Boolean> put : puts) {
+            allPut &= put.join();
+        }
+        return allPut;
+    }
+
+    private boolean putValues(List<Map.Entry<String, Map<String, String>>> shardValues) {
+        boolean allPut = true;
+        for (Map.Entry<String, Map<String, String>> sheetAndValues : shardValues) {
+            allPut &= sheets.get(sheetAndValues.getKey()).putValues(sheetAndValues.getValue());
+        }
+        return allPut;
+    }
+
+    @Override
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+        for (WorkbookSheet sheet : sheets.values()) {
+            sheet.shutdown();
+        }
+    }
+
+    private static boolean checkSheetName(String name) {
+        if (isNull(name) || name.isEmpty() || name.length() > MAX_SHEET_NAME_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void refreshStaleProxies() {
+        final Deque<Proxy> staleProxies = STALE_PROXIES.get();
+        while (!staleProxies.isEmpty()) {
+            staleProxies.poll().refresh();
+        }
+    }
+
+    private class WorkbookSheet implements GoogleSheet {
+        private final String name;
+        private final int shard;
+        private final ConcurrentGoogleSheet cells =
+                new ConcurrentGoogleSheet(GoogleSheetSettings.builder().build(), true);
+        /**
+         * By qualified address, changed under both the sheet graph lock and the sheet's one.
+         */
+        private final Map<String, Proxy> proxies = new HashMap<>();
+        private final Map<String, List<Proxy>> proxiesByCell = new HashMap<>();
+        /**
+         * Count of other sheets' proxies of this sheet's cells, changed under both the sheet graph lock
+         * and the sheet's one.
+         */
+        private int referrers;
+
+        private WorkbookSheet(String name, int shard) {
+            this.name = name;
+            this.shard = shard;
+        }
+
+        @Override
+        public boolean putValue(String address, String value) {
+            return putValues(Collections.singletonMap(address, value));
+        }
+
+        @Override
+        public boolean putValues(Map<String, String> valuesByAddress) {
+            if (valuesByAddress == null) {
+                return false;
+            }
+
+            final Map<String, String> localValues = new LinkedHashMap<>();
+            final Map<String, List<String>> qualifiedByCell = new HashMap<>();
+            boolean anyQualified = false;
+            for (Map.Entry<String, String> addressAndValue : valuesByAddress.entrySet()) {
+                final String address = addressAndValue.getKey();
+                if (!GoogleSheetImpl.checkAddress(address) || address.indexOf(SHEET_SEPARATOR) >= 0) {
+                    return false;
+                }
+                final Expression expression = CellParser.parse(addressAndValue.getValue(), true);
+                if (expression == null) {
+                    return false;
+                }
+                final List<String> qualified = new ArrayList<>(2);
+                final String localValue = localValue(expression, addressAndValue.getValue(), qualified);
+                if (localValue == null) {
+                    return false;
+                }
+                localValues.put(address, localValue);
+                qualifiedByCell.put(address, qualified);
+                anyQualified |= !qualified.isEmpty();
+            }
+
+            try {
+                return putLocalValues(localValues, qualifiedByCell, anyQualified);
+            } finally {
+                refreshStaleProxies();
+            }
+        }
+
+        private boolean putLocalValues(Map<String, String> localValues, Map<String, List<String>> qualifiedByCell,
+                                       boolean anyQualified) {
+            if (!anyQualified) {
+                synchronized (this) {
+                    if (!linksSheets(localValues.keySet())) {
+                        return cells.putValues(localValues);
+                    }
+                }
+            }
+
+            synchronized (sheetGraphLock) {
+                synchronized (this) {
+                    final Map<String, List<Proxy>> newProxiesByCell = acquireProxies(qualifiedByCell);
+                    if (mayCloseCycle() && new CycleCheck(this, localValues).closesCycle()) {
+                        newProxiesByCell.values().forEach(this::releaseProxies);
+                        return false;
+                    }
+                    for (List<Proxy> cellProxies : newProxiesByCell.values()) {
+                        cellProxies.forEach(Proxy::subscribe);
+                    }
+                    if (!cells.putValues(localValues)) {
+                        newProxiesByCell.values().forEach(this::releaseProxies);
+                        return false;
+                    }
+                    for (Map.Entry<String, List<Proxy>> cellAndProxies : newProxiesByCell.entrySet()) {
+                        final List<Proxy> oldProxies = cellAndProxies.getValue().isEmpty()
+                                ? proxiesByCell.remove(cellAndProxies.getKey())
+                                : proxiesByCell.put(cellAndProxies.getKey(), cellAndProxies.getValue());
+                        if (oldProxies != null) {
+                            releaseProxies(oldProxies);
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Whether a put of the cells must take the sheet graph lock: it drops proxies or may close a cycle.
+         */
+        private boolean linksSheets(Set<String> addresses) {
+            if (mayCloseCycle()) {
+                return true;
+            }
+            for (String address : addresses) {
+                if (proxiesByCell.containsKey(address)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean mayCloseCycle() {
+            return !proxies.isEmpty() && referrers > 0;
+        }
+
+        /**
+         * Value with references to this sheet unqualified; other sheets' addresses are added to qualified.
+         * Null if a referred sheet does not exist.
+         */
+        private String localValue(Expression expression, String value, List<String> qualified) {
+            if (expression instanceof Reference) {
+                final String address = localAddress(((Reference) expression).getAddress(), qualified);
+                return address == null ? null : "=" + address;
+            }
+            if (expression instanceof Sum) {
+                final String left = localAddress(((Sum) expression).getLeftAddress(), qualified);
+                final String right = localAddress(((Sum) expression).getRightAddress(), qualified);
+                return left == null || right == null ? null : "=" + left + "+" + right;
+            }
+            return value;
+        }
+
+        private String localAddress(String address, List<String> qualified) {
+            final int separator = address.indexOf(SHEET_SEPARATOR);
+            if (separator < 0) {
+                return address;
+            }
+            final String sheetName = address.substring(0, separator);
+            if (sheetName.equals(name)) {
+                return address.substring(separator + 1);
+            }
+            if (!sheets.containsKey(sheetName)) {
+                return null;
+            }
+            qualified.add(address);
+            return address;
+        }
+
+        /**
+         * Takes a proxy per qualified address, new ones are not subscribed yet.
+         */
+        private Map<String, List<Proxy>> acquireProxies(Map<String, List<String>> qualifiedByCell) {
+            final Map<String, List<Proxy>> proxiesByCell = new HashMap<>();
+            for (Map.Entry<String, List<String>> cellAndQualified : qualifiedByCell.entrySet()) {
+                final List<Proxy> cellProxies = new ArrayList<>(cellAndQualified.getValue().size());
+                for (String qualifiedAddress : cellAndQualified.getValue()) {
+                    cellProxies.add(acquireProxy(qualifiedAddress));
+                }
+                proxiesByCell.put(cellAndQualified.getKey(), cellProxies);
+            }
+            return proxiesByCell;
+        }
+
+        private Proxy acquireProxy(String qualifiedAddress) {
+            Proxy proxy = proxies.get(qualifiedAddress);
+            if (proxy == null) {
+                final int separator = qualifiedAddress.indexOf(SHEET_SEPARATOR);
+                final WorkbookSheet target = sheets.get(qualifiedAddress.substring(0, separator));
+                proxy = new Proxy(this, target, qualifiedAddress.substring(separator + 1), qualifiedAddress);
+                proxies.put(qualifiedAddress, proxy);
+                synchronized (target) {
+                    target.referrers++;
+                }
+            }
+            proxy.references++;
+            return proxy;
+        }
+
+        /**
+         * Unreferenced proxies stop following their cells, before the sheet graph lock is released,
+         * and their mirrored cells are emptied.
+         */
+        private void releaseProxies(List<Proxy> cellProxies) {
+            for (Proxy proxy : cellProxies) {
+                if (--proxy.references == 0) {
+                    proxies.remove(proxy.qualifiedAddress);
+                    proxy.close();
+                    synchronized (proxy.target) {
+                        proxy.target.referrers--;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Qualified addresses are evaluated in their sheet.
+         */
+        @Override
+        public Long evaluate(String address) {
+            if (!GoogleSheetImpl.checkAddress(address)) {
+                return null;
+            }
+
+            final int separator = address.indexOf(SHEET_SEPARATOR);
+            if (separator < 0) {
+                return cells.evaluate(address);
+            }
+            final WorkbookSheet sheet = sheets.get(address.substring(0, separator));
+            final String localAddress = address.substring(separator + 1);
+            if (sheet == null || localAddress.indexOf(SHEET_SEPARATOR) >= 0) {
+                return null;
+            }
+            return sheet.cells.evaluate(localAddress);
+        }
+
+        @Override
+        public Subscription subscribe(String address, Consumer<Long> listener) {
+            if (!GoogleSheetImpl.checkAddress(address) || address.indexOf(SHEET_SEPARATOR) >= 0) {
+                return null;
+            }
+            return cells.subscribe(address, listener);
+        }
+
+        @Override
+        public void shutdown() {
+            cells.shutdown();
+        }
+    }
+
+    /**
+     * Tarjan's strongly connected components of the cells reachable from the cells put into a sheet,
+     * following references across the sheets, with the put values in place of the stored ones.
+     * A component of cells of several sheets is a cycle through other sheets. Sheets with no proxies
+     * refer to no other sheet, so their cells cannot be in such a cycle and are not walked.
+     */
+    private class CycleCheck {
+        private final WorkbookSheet origin;
+        private final Map<String, String> localValues;
+        private final Map<String, Node> nodes = new HashMap<>();
+        private final Deque<Node> component = new ArrayDeque<>();
+        private int visited;
+
+        private CycleCheck(WorkbookSheet origin, Map<String, String> localValues) {
+            this.origin = origin;
+            this.localValues = localValues;
+        }
+
+        private boolean closesCycle() {
+            for (String address : localValues.keySet()) {
+                final Node node = node(origin, address);
+                if (node.index < 0 && walk(node)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean walk(Node root) {
+            final Deque<Node> path = new ArrayDeque<>();
+            open(root, path);
+            while (!path.isEmpty()) {
+                final Node node = path.peek();
+                if (node.next < node.precedents.size()) {
+                    final Node precedent = node.precedents.get(node.next++);
+                    if (precedent.index < 0) {
+                        open(precedent, path);
+                    } else if (precedent.onStack) {
+                        node.lowLink = Math.min(node.lowLink, precedent.index);
+                    }
+                    continue;
+                }
+                path.pop();
+                if (!path.isEmpty()) {
+                    path.peek().lowLink = Math.min(path.peek().lowLink, node.lowLink);
+                }
+                if (node.lowLink == node.index && closeComponent(node)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void open(Node node, Deque<Node> path) {
+            node.index = visited++;
+            node.lowLink = node.index;
+            node.precedents = precedents(node);
+            node.onStack = true;
+            component.push(node);
+            path.push(node);
+        }
+
+        /**
+         * Pops the component of the root, true if it has cells of several sheets.
+         */
+        private boolean closeComponent(Node root) {
+            boolean severalSheets = false;
+            Node node;
+            do {
+                node = component.pop();
+                node.onStack = false;
+                severalSheets |= node.sheet != root.sheet;
+            } while (node != root);
+            return severalSheets;
+        }
+
+        private List<Node> precedents(Node node) {
+            final WorkbookSheet sheet = node.sheet;
+            if (sheet != origin && sheet.proxies.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final String localValue = sheet == origin ? localValues.get(node.address) : null;
+            final Expression expression = localValue == null
+                    ? sheet.cells.expressionOf(node.address)
+                    : CellParser.parse(localValue, true);
+
+            final List<Node> precedents = new ArrayList<>();
+            if (expression instanceof Reference) {
+                precedents.add(node(sheet, ((Reference) expression).getAddress()));
+            } else if (expression instanceof Sum) {
+                precedents.add(node(sheet, ((Sum) expression).getLeftAddress()));
+                precedents.add(node(sheet, ((Sum) expression).getRightAddress()));
+            } else if (expression instanceof RangeAggregate) {
+                final RangeAggregate range = (RangeAggregate) expression;
+                sheet.cells.forEachCellIn(range, address -> precedents.add(node(sheet, address)));
+                if (sheet == origin) {
+                    for (String address : localValues.keySet()) {
+                        final long coordinates = CellCoordinates.decode(address);
+                        if (coordinates != CellCoordinates.NONE && range.contains(
+                                CellCoordinates.column(coordinates), CellCoordinates.row(coordinates))) {
+                            precedents.add(node(sheet, address));
+                        }
+                    }
+                }
+            }
+            return precedents;
+        }
+
+        /**
+         * Node of the cell, a qualified address being the cell of the other sheet rather than its proxy.
+         */
+        private Node node(WorkbookSheet sheet, String address) {
+            final int separator = address.indexOf(SHEET_SEPARATOR);
+            final WorkbookSheet cellSheet = separator < 0 ? sheet : sheets.get(address.substring(0, separator));
+            final String cellAddress = address.substring(separator + 1);
+            return nodes.computeIfAbsent(cellSheet.name + SHEET_SEPARATOR + cellAddress,
+                    key -> new Node(cellSheet, cellAddress));
+        }
+    }
+
+    private static class Node {
+        private final WorkbookSheet sheet;
+        private final String address;
+        private int index = -1;
+        private int lowLink;
+        private boolean onStack;
+        private List<Node> precedents;
+        private int next;
+
+        private Node(WorkbookSheet sheet, String address) {
+            this.sheet = sheet;
+            this.address = address;
+        }
+    }
+
+    /**
+     * Cell of the target sheet mirrored into the owner sheet, shared by all the owner's cells referring to it.
+     */
+    private static class Proxy {
+        private final WorkbookSheet owner;
+        private final WorkbookSheet target;
+        private final String targetAddress;
+        private final String qualifiedAddress;
+        private Subscription subscription;
+        private int references;
+        private boolean closed;
+
+        private Proxy(WorkbookSheet owner, WorkbookSheet target, String targetAddress, String qualifiedAddress) {
+            this.owner = owner;
+            this.target = target;
+            this.targetAddress = targetAddress;
+            this.qualifiedAddress = qualifiedAddress;
+        }
+
+        /**
+         * Follows the cell, mirroring its current value right away; does nothing if already subscribed.
+         */
+        private void subscribe() {
+            if (subscription != null) {
+                return;
+            }
+            subscription = target.cells.subscribe(targetAddress, value -> STALE_PROXIES.get().add(this));
+            refresh();
+        }
+
+        private void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            if (subscription != null) {
+                subscription.cancel();
+                owner.cells.clearValue(qualifiedAddress);
+            }
+        }
+
+        /**
+         * Puts the latest published value, so refreshes racing with each other still end with the latest one.
+         */
+        private synchronized void refresh() {
+            if (closed) {
+                return;
+            }
+            final Long value = target.cells.evaluate(targetAddress);
+            if (value == null) {
+                owner.cells.putUndefined(qualifiedAddress);
+            } else {
+                owner.cells.putValue(qualifiedAddress, value.toString());
+            }
+        }
+    }
+}
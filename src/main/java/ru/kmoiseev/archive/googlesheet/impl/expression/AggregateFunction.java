@@ -0,0 +1,12 @@
+package ru.kmoiseev.archive.googlesheet.impl.expression;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+public enum AggregateFunction {
+    SUM,
+    MIN,
+    MAX,
+    COUNT
+}
@@ -0,0 +1,13 @@
+package ru.kmoiseev.archive.googlesheet.impl.expression;
+
+import ru.kmoiseev.archive.googlesheet.impl.CellType;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Parsed cell value, built once on put and then encoded into {@link ru.kmoiseev.archive.googlesheet.impl.CellsStorage}.
+ */
+public interface Expression {
+    CellType getType();
+}
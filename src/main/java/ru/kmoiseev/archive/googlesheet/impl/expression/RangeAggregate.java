@@ -0,0 +1,28 @@
+package ru.kmoiseev.archive.googlesheet.impl.expression;
+
+import lombok.Value;
+import ru.kmoiseev.archive.googlesheet.impl.CellType;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Aggregate over a rectangle of A1-style cells, both corners included.
+ */
+@Value
+public class RangeAggregate implements Expression {
+    AggregateFunction function;
+    int fromColumn;
+    int fromRow;
+    int toColumn;
+    int toRow;
+
+    @Override
+    public CellType getType() {
+        return CellType.RANGE;
+    }
+
+    public boolean contains(int column, int row) {
+        return column >= fromColumn && column <= toColumn && row >= fromRow && row <= toRow;
+    }
+}
@@ -0,0 +1,18 @@
+package ru.kmoiseev.archive.googlesheet.impl.expression;
+
+import lombok.Value;
+import ru.kmoiseev.archive.googlesheet.impl.CellType;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+@Value
+public class Reference implements Expression {
+    String address;
+
+    @Override
+    public CellType getType() {
+        return CellType.REFERENCE;
+    }
+}
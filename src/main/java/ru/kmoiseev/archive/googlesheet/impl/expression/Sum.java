@@ -0,0 +1,19 @@
+package ru.kmoiseev.archive.googlesheet.impl.expression;
+
+import lombok.Value;
+import ru.kmoiseev.archive.googlesheet.impl.CellType;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+@Value
+public class Sum implements Expression {
+    String leftAddress;
+    String rightAddress;
+
+    @Override
+    public CellType getType() {
+        return CellType.SUM;
+    }
+}
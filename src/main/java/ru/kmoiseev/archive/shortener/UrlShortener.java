@@ -1,5 +1,8 @@
 package ru.kmoiseev.archive.shortener;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
  * @author konstantinmoiseev
  * @since 24.01.2022
@@ -7,4 +10,17 @@ package ru.kmoiseev.archive.shortener;
 public interface UrlShortener {
     String shortenUrl(final String fullUrl);
     String resolveShortenedUrl(final String shortenedUrl);
+
+    /**
+     * Short urls in the order of the full ones, null for the ones which cannot be shortened.
+     */
+    default List<String> shortenAll(final List<String> fullUrls) {
+        return fullUrls.stream().map(this::shortenUrl).collect(Collectors.toList());
+    }
+
+    default List<String> resolveAll(final List<String> shortenedUrls) {
+        return shortenedUrls.stream().map(this::resolveShortenedUrl).collect(Collectors.toList());
+    }
+
+    default void shutdown() {}
 }
@@ -0,0 +1,130 @@
+package ru.kmoiseev.archive.shortener.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.SneakyThrows;
+import ru.kmoiseev.archive.shortener.impl.UrlShortenerImpl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Embedded HTTP/1.1 front-end of the shortener on the JDK http server, which keeps connections alive
+ * and answers pipelined requests of a connection in order.
+ * GET /{code} redirects to the full url, 404 if the code is unknown;
+ * POST / with the full url as the UTF-8 body answers 201 with the short url, 400 if it cannot be shortened.
+ */
+public class UrlShortenerHttpServer {
+    private static final int MAX_URL_BYTES = 8192;
+    private static final int NO_BODY = -1;
+
+    private final UrlShortenerImpl urlShortener;
+    private final int redirectStatus;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @param permanentRedirects 301 if true, so clients may cache the redirect; 302 otherwise
+     * @param threads handling the requests, at least 1; daemon ones, so a server not stopped does not keep
+     *                the JVM alive. The build targets Java 11, which has no virtual threads
+     */
+    @SneakyThrows
+    public UrlShortenerHttpServer(UrlShortenerImpl urlShortener, InetSocketAddress address,
+                                  boolean permanentRedirects, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+        }
+
+        this.urlShortener = urlShortener;
+        this.redirectStatus = permanentRedirects ? 301 : 302;
+        this.server = HttpServer.create(address, 1024);
+        final AtomicInteger threadsCreated = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "url-shortener-http-" + threadsCreated.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                // the server keeps the connection alive only if the request body has been read to its end
+                exchange.getRequestBody().close();
+            }
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    redirect(exchange);
+                    return;
+                case "POST":
+                    shorten(exchange);
+                    return;
+                default:
+                    exchange.getResponseHeaders().set("Allow", "GET, POST");
+                    exchange.sendResponseHeaders(405, NO_BODY);
+            }
+        }
+    }
+
+    private void redirect(HttpExchange exchange) throws IOException {
+        final String path = exchange.getRequestURI().getRawPath();
+        final String fullUrl = urlShortener.resolveShortenedUrl(path, 1, path.length());
+        if (fullUrl == null) {
+            exchange.sendResponseHeaders(404, NO_BODY);
+            return;
+        }
+        exchange.getResponseHeaders().set("Location", fullUrl);
+        exchange.sendResponseHeaders(redirectStatus, NO_BODY);
+    }
+
+    private void shorten(HttpExchange exchange) throws IOException {
+        final byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readNBytes(MAX_URL_BYTES + 1);
+        }
+        if (!"/".equals(exchange.getRequestURI().getRawPath())) {
+            exchange.sendResponseHeaders(404, NO_BODY);
+            return;
+        }
+        if (body.length > MAX_URL_BYTES) {
+            exchange.sendResponseHeaders(413, NO_BODY);
+            return;
+        }
+
+        final String shortUrl = urlShortener.shortenUrl(new String(body, StandardCharsets.UTF_8).strip());
+        if (shortUrl == null) {
+            exchange.sendResponseHeaders(400, NO_BODY);
+            return;
+        }
+        final byte[] response = shortUrl.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(201, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author konstantinmoiseev
+ * @since 24.01.2022
+ *
+ * Full urls by id in pages of 4096 slots, found by the id itself, since ids are handed out nearly consecutively.
+ * Retrieving is two volatile reads with no locks and no allocation; keeping locks only to add a page.
+ */
+public class HeapShortUrlKeeper implements ShortUrlKeeper {
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final long MAX_ID = ((long) Integer.MAX_VALUE << PAGE_BITS) | PAGE_MASK;
+
+    private volatile AtomicReferenceArray<AtomicReferenceArray<String>> pages = new AtomicReferenceArray<>(16);
+
+    @Override
+    public boolean keep(final long id, final String fullUrl) {
+        if (id < 0 || id > MAX_ID) {
+            return false;
+        }
+        pageOf(id).set((int) (id & PAGE_MASK), fullUrl);
+        return true;
+    }
+
+    @Override
+    public String retrieve(final long id) {
+        if (id < 0 || id > MAX_ID) {
+            return null;
+        }
+        final AtomicReferenceArray<AtomicReferenceArray<String>> currentPages = pages;
+        final int pageIndex = (int) (id >>> PAGE_BITS);
+        if (pageIndex >= currentPages.length()) {
+            return null;
+        }
+        final AtomicReferenceArray<String> page = currentPages.get(pageIndex);
+        return page == null ? null : page.get((int) (id & PAGE_MASK));
+    }
+
+    @Override
+    public void forget(final long id) {
+        if (retrieve(id) != null) {
+            pageOf(id).set((int) (id & PAGE_MASK), null);
+        }
+    }
+
+    private AtomicReferenceArray<String> pageOf(long id) {
+        final int pageIndex = (int) (id >>> PAGE_BITS);
+        final AtomicReferenceArray<AtomicReferenceArray<String>> currentPages = pages;
+        if (pageIndex < currentPages.length()) {
+            final AtomicReferenceArray<String> page = currentPages.get(pageIndex);
+            if (page != null) {
+                return page;
+            }
+        }
+        return addPage(pageIndex);
+    }
+
+    /**
+     * Growing the pages and adding a page are both done under the lock, so no page added is lost by growing.
+     */
+    private synchronized AtomicReferenceArray<String> addPage(int pageIndex) {
+        AtomicReferenceArray<AtomicReferenceArray<String>> currentPages = pages;
+        if (pageIndex >= currentPages.length()) {
+            final long length = Math.max((long) pageIndex + 1, currentPages.length() * 2L);
+            final AtomicReferenceArray<AtomicReferenceArray<String>> grownPages = new AtomicReferenceArray<>((int) Math.min(Integer.MAX_VALUE, length));
+            for (int i = 0; i < currentPages.length(); i++) {
+                grownPages.set(i, currentPages.get(i));
+            }
+            pages = grownPages;
+            currentPages = grownPages;
+        }
+
+        AtomicReferenceArray<String> page = currentPages.get(pageIndex);
+        if (page == null) {
+            page = new AtomicReferenceArray<>(PAGE_SIZE);
+            currentPages.set(pageIndex, page);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,270 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Small on-heap cache of the most resolved urls in front of another keeper, which may be off-heap or on disk.
+ * Eviction is {@link TinyLfuPolicy W-TinyLFU}, so a burst of one-off links does not push the hot set out.
+ *
+ * Ids are spread over segments. A hit takes no lock: the url is found in a table of immutable entries,
+ * which may miss an entry being moved and then falls back to the keeper, and the hit is recorded into a lossy
+ * read buffer. The buffer is drained into the policy by whoever gets the segment lock, which misses and keeps
+ * of cached ids take and every few hits try to take. Keeping a new id, which is not cached, takes no lock.
+ */
+public class HotLinkCache implements ShortUrlKeeper {
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final ShortUrlKeeper keeper;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public HotLinkCache(ShortUrlKeeper keeper, int maximumSize) {
+        this.keeper = keeper;
+        final int segmentsCount = Math.max(1, Math.min(MAX_SEGMENTS,
+                Integer.highestOneBit(Math.max(1, maximumSize / MIN_SEGMENT_SIZE))));
+        this.segments = new Segment[segmentsCount];
+        for (int i = 0; i < segmentsCount; i++) {
+            segments[i] = new Segment(Math.max(1, (maximumSize + segmentsCount - 1) / segmentsCount));
+        }
+        this.segmentMask = segmentsCount - 1;
+    }
+
+    @Override
+    public boolean keep(long id, String fullUrl) {
+        if (!keeper.keep(id, fullUrl)) {
+            return false;
+        }
+        final Segment segment = segmentOf(id);
+        if (segment.find(id) != null) {
+            segment.replace(id, fullUrl);
+        }
+        return true;
+    }
+
+    @Override
+    public String retrieve(long id) {
+        if (id < 0) {
+            return null;
+        }
+        final Segment segment = segmentOf(id);
+        final String cached = segment.find(id);
+        if (cached != null) {
+            hits.increment();
+            segment.recordHit(id);
+            return cached;
+        }
+
+        misses.increment();
+        final String fullUrl = keeper.retrieve(id);
+        if (fullUrl != null) {
+            segment.put(id, fullUrl);
+        }
+        return fullUrl;
+    }
+
+    @Override
+    public void forget(long id) {
+        keeper.forget(id);
+        if (id >= 0) {
+            segmentOf(id).remove(id);
+        }
+    }
+
+    public HotLinkStats getStats() {
+        long evictions = 0;
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                evictions += segment.evictions;
+                size += segment.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return new HotLinkStats(hits.sum(), misses.sum(), evictions, size);
+    }
+
+    private Segment segmentOf(long id) {
+        return segments[(int) (spread(id) >>> 60) & segmentMask];
+    }
+
+    private static long spread(long id) {
+        return id * 0x9E3779B97F4A7C15L;
+    }
+
+    private static class Segment extends TinyLfuPolicy {
+        private static final int READ_BUFFER_SIZE = 64;
+        private static final int DRAIN_INTERVAL_MASK = 15;
+        private static final long NO_ID = -1;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicReferenceArray<Entry> entries;
+        private final int entriesMask;
+        private final AtomicLongArray reads = new AtomicLongArray(READ_BUFFER_SIZE);
+        private long evictions;
+
+        private Segment(int maximumSize) {
+            super(maximumSize);
+            // one more than the maximum is cached until evicted, the table is kept at most half full
+            final int capacity = Integer.highestOneBit(maximumSize + 1) << 2;
+            this.entries = new AtomicReferenceArray<>(capacity);
+            this.entriesMask = capacity - 1;
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                reads.set(i, NO_ID);
+            }
+        }
+
+        /**
+         * Lock free, may miss an entry being moved by a concurrent removal but never returns another id's url.
+         */
+        private String find(long id) {
+            for (int slot = slot(id) & entriesMask, probes = 0; probes <= entriesMask;
+                 slot = (slot + 1) & entriesMask, probes++) {
+                final Entry entry = entries.get(slot);
+                if (entry == null) {
+                    return null;
+                }
+                if (entry.id == id) {
+                    return entry.url;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Records the hit into a random slot of the read buffer, overwriting whatever was not drained yet,
+         * and now and then drains the buffer unless the segment is locked.
+         */
+        private void recordHit(long id) {
+            final int random = ThreadLocalRandom.current().nextInt();
+            reads.lazySet(random & (READ_BUFFER_SIZE - 1), id);
+            if ((random >>> 16 & DRAIN_INTERVAL_MASK) == 0 && lock.tryLock()) {
+                try {
+                    drainReads();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Counts the resolve which missed, caches the url and evicts the excess.
+         */
+        private void put(long id, String url) {
+            lock.lock();
+            try {
+                drainReads();
+                recordAccess(id);
+                if (findNode(id) == NONE) {
+                    addNode(id);
+                }
+                store(id, url);
+                evictExcess();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void replace(long id, String url) {
+            lock.lock();
+            try {
+                if (findNode(id) != NONE) {
+                    store(id, url);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void remove(long id) {
+            lock.lock();
+            try {
+                final int node = findNode(id);
+                if (node != NONE) {
+                    removeNode(node);
+                    delete(id);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void drainReads() {
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                final long id = reads.getAndSet(i, NO_ID);
+                if (id != NO_ID) {
+                    recordAccess(id);
+                    final int node = findNode(id);
+                    if (node != NONE) {
+                        touch(node);
+                    }
+                }
+            }
+        }
+
+        @Override
+        protected void onEvicted(long key, int node) {
+            delete(key);
+            evictions++;
+        }
+
+        @Override
+        protected void growNodes(int capacity) {
+        }
+
+        private void store(long id, String url) {
+            int slot = slot(id) & entriesMask;
+            for (Entry entry = entries.get(slot); entry != null && entry.id != id; entry = entries.get(slot)) {
+                slot = (slot + 1) & entriesMask;
+            }
+            entries.set(slot, new Entry(id, url));
+        }
+
+        /**
+         * Linear probing removal shifting back the following entries of the same cluster, so no tombstones are needed.
+         * An entry is written to its new slot before its old slot is reused.
+         */
+        private void delete(long id) {
+            int hole = slot(id) & entriesMask;
+            while (entries.get(hole).id != id) {
+                hole = (hole + 1) & entriesMask;
+            }
+
+            for (int current = (hole + 1) & entriesMask; entries.get(current) != null;
+                 current = (current + 1) & entriesMask) {
+                final Entry entry = entries.get(current);
+                final int home = slot(entry.id) & entriesMask;
+                if (((current - home) & entriesMask) >= ((current - hole) & entriesMask)) {
+                    entries.set(hole, entry);
+                    hole = current;
+                }
+            }
+            entries.set(hole, null);
+        }
+
+        private static int slot(long id) {
+            return (int) (spread(id) >>> 32);
+        }
+    }
+
+    private static class Entry {
+        private final long id;
+        private final String url;
+
+        private Entry(long id, String url) {
+            this.id = id;
+            this.url = url;
+        }
+    }
+}
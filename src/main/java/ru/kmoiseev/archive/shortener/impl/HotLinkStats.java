@@ -0,0 +1,23 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import lombok.Value;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Counters of the {@link HotLinkCache}: resolves answered from the cache, resolves that went to the keeper,
+ * evicted urls and urls currently cached.
+ */
+@Value
+public class HotLinkStats {
+    long hits;
+    long misses;
+    long evictions;
+    int size;
+
+    public double getHitRatio() {
+        final long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
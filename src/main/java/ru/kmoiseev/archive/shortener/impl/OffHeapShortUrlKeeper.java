@@ -0,0 +1,191 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Full urls as UTF-8 bytes appended to direct buffer slabs, each one prefixed with its varint length.
+ * The slab position of a url is found by the id in pages of longs, so an url costs 8 bytes of the index
+ * and 1-3 bytes of the length besides its bytes, and there is nothing for GC to scan.
+ * Urls are written before their position is published, so retrieving needs no locks.
+ */
+public class OffHeapShortUrlKeeper implements ShortUrlKeeper {
+    private static final int DEFAULT_SLAB_SIZE = 64 << 20;
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final long MAX_ID = ((long) Integer.MAX_VALUE << PAGE_BITS) | PAGE_MASK;
+    private static final long ABSENT = 0L;
+
+    private final int slabSize;
+    private final AtomicLong arenaEnd = new AtomicLong();
+    private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+    private volatile AtomicReferenceArray<AtomicLongArray> pages = new AtomicReferenceArray<>(16);
+
+    public OffHeapShortUrlKeeper() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    OffHeapShortUrlKeeper(int slabSize) {
+        this.slabSize = slabSize;
+    }
+
+    @Override
+    public boolean keep(final long id, final String fullUrl) {
+        final byte[] bytes = fullUrl.getBytes(StandardCharsets.UTF_8);
+        final int entrySize = varintSize(bytes.length) + bytes.length;
+        if (id < 0 || id > MAX_ID || entrySize > slabSize) {
+            return false;
+        }
+
+        final long position = allocate(entrySize);
+        final ByteBuffer slab = slab((int) (position / slabSize));
+        int offset = writeVarint(slab, (int) (position % slabSize), bytes.length);
+        for (byte b : bytes) {
+            slab.put(offset++, b);
+        }
+        pageOf(id).set((int) (id & PAGE_MASK), position + 1);
+        return true;
+    }
+
+    @Override
+    public String retrieve(final long id) {
+        if (id < 0 || id > MAX_ID) {
+            return null;
+        }
+        final AtomicReferenceArray<AtomicLongArray> currentPages = pages;
+        final int pageIndex = (int) (id >>> PAGE_BITS);
+        if (pageIndex >= currentPages.length()) {
+            return null;
+        }
+        final AtomicLongArray page = currentPages.get(pageIndex);
+        final long address = page == null ? ABSENT : page.get((int) (id & PAGE_MASK));
+        if (address == ABSENT) {
+            return null;
+        }
+
+        final long position = address - 1;
+        final ByteBuffer slab = slabs[(int) (position / slabSize)];
+        int offset = (int) (position % slabSize);
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            final byte b = slab.get(offset++);
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = slab.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The bytes of the forgotten url stay in the arena.
+     */
+    @Override
+    public void forget(final long id) {
+        if (retrieve(id) != null) {
+            pageOf(id).set((int) (id & PAGE_MASK), ABSENT);
+        }
+    }
+
+    /**
+     * Bytes taken in the slabs, gaps at slab ends included.
+     */
+    public long getArenaBytes() {
+        return arenaEnd.get();
+    }
+
+    /**
+     * Position of the entry in the arena, moved to the next slab if the rest of the current one is too small.
+     */
+    private long allocate(int entrySize) {
+        while (true) {
+            final long end = arenaEnd.get();
+            final long slabRest = slabSize - end % slabSize;
+            final long position = slabRest < entrySize ? end + slabRest : end;
+            if (arenaEnd.compareAndSet(end, position + entrySize)) {
+                return position;
+            }
+        }
+    }
+
+    private ByteBuffer slab(int index) {
+        final ByteBuffer[] currentSlabs = slabs;
+        return index < currentSlabs.length ? currentSlabs[index] : addSlabs(index);
+    }
+
+    private synchronized ByteBuffer addSlabs(int index) {
+        ByteBuffer[] currentSlabs = slabs;
+        if (index >= currentSlabs.length) {
+            final int length = currentSlabs.length;
+            currentSlabs = Arrays.copyOf(currentSlabs, index + 1);
+            for (int i = length; i <= index; i++) {
+                currentSlabs[i] = ByteBuffer.allocateDirect(slabSize);
+            }
+            slabs = currentSlabs;
+        }
+        return currentSlabs[index];
+    }
+
+    private AtomicLongArray pageOf(long id) {
+        final int pageIndex = (int) (id >>> PAGE_BITS);
+        final AtomicReferenceArray<AtomicLongArray> currentPages = pages;
+        if (pageIndex < currentPages.length()) {
+            final AtomicLongArray page = currentPages.get(pageIndex);
+            if (page != null) {
+                return page;
+            }
+        }
+        return addPage(pageIndex);
+    }
+
+    private synchronized AtomicLongArray addPage(int pageIndex) {
+        AtomicReferenceArray<AtomicLongArray> currentPages = pages;
+        if (pageIndex >= currentPages.length()) {
+            final long length = Math.max((long) pageIndex + 1, currentPages.length() * 2L);
+            final AtomicReferenceArray<AtomicLongArray> grownPages =
+                    new AtomicReferenceArray<>((int) Math.min(Integer.MAX_VALUE, length));
+            for (int i = 0; i < currentPages.length(); i++) {
+                grownPages.set(i, currentPages.get(i));
+            }
+            pages = grownPages;
+            currentPages = grownPages;
+        }
+
+        AtomicLongArray page = currentPages.get(pageIndex);
+        if (page == null) {
+            page = new AtomicLongArray(PAGE_SIZE);
+            currentPages.set(pageIndex, page);
+        }
+        return page;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        for (int rest = value >>> 7; rest != 0; rest >>>= 7) {
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint(ByteBuffer slab, int offset, int value) {
+        int rest = value;
+        while ((rest & ~0x7F) != 0) {
+            slab.put(offset++, (byte) ((rest & 0x7F) | 0x80));
+            rest >>>= 7;
+        }
+        slab.put(offset++, (byte) rest);
+        return offset;
+    }
+}
@@ -0,0 +1,140 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import java.util.Arrays;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Base62 short codes of numeric ids, "0"-"9", "A"-"Z", "a"-"z", and back. Every id has exactly one code:
+ * codes with leading zeros are not decoded.
+ *
+ * With a shuffle key the low 34 bits of the id are permuted by a 4-round Feistel network before encoding,
+ * so consecutive ids give unrelated codes, still of at most 6 characters for the first 2^34 ids.
+ */
+public class ShortCodeCodec {
+    public static final long INVALID = -1L;
+    public static final int MAX_CODE_LENGTH = 11;
+
+    private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int BASE = DIGITS.length;
+    private static final byte[] VALUES = new byte[128];
+    private static final int HALF_BITS = 17;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final long SHUFFLED_MASK = (1L << (2 * HALF_BITS)) - 1;
+    private static final int ROUNDS = 4;
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < BASE; i++) {
+            VALUES[DIGITS[i]] = (byte) i;
+        }
+    }
+
+    private final long[] roundKeys;
+
+    public ShortCodeCodec() {
+        this.roundKeys = null;
+    }
+
+    public ShortCodeCodec(long shuffleKey) {
+        this.roundKeys = new long[ROUNDS];
+        long key = shuffleKey;
+        for (int i = 0; i < ROUNDS; i++) {
+            key = mix(key + 0x9E3779B97F4A7C15L);
+            roundKeys[i] = key;
+        }
+    }
+
+    /**
+     * @param id not negative
+     */
+    public String encode(long id) {
+        final char[] code = new char[MAX_CODE_LENGTH];
+        final int start = encode(id, code);
+        return new String(code, start, MAX_CODE_LENGTH - start);
+    }
+
+    /**
+     * Appends the code to the builder, with no intermediate string.
+     */
+    public void appendTo(long id, StringBuilder out) {
+        final char[] code = new char[MAX_CODE_LENGTH];
+        final int start = encode(id, code);
+        out.append(code, start, MAX_CODE_LENGTH - start);
+    }
+
+    private int encode(long id, char[] code) {
+        long rest = shuffle(id);
+        int start = MAX_CODE_LENGTH;
+        do {
+            code[--start] = DIGITS[(int) (rest % BASE)];
+            rest /= BASE;
+        } while (rest > 0);
+        return start;
+    }
+
+    /**
+     * Id of the code within the characters from and to, {@link #INVALID} if it is not a code.
+     */
+    public long decode(CharSequence code, int from, int to) {
+        final int length = to - from;
+        if (length <= 0 || length > MAX_CODE_LENGTH || (length > 1 && code.charAt(from) == '0')) {
+            return INVALID;
+        }
+
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            final char c = code.charAt(i);
+            final int digit = c < VALUES.length ? VALUES[c] : -1;
+            if (digit < 0 || value > (Long.MAX_VALUE - digit) / BASE) {
+                return INVALID;
+            }
+            value = value * BASE + digit;
+        }
+        return unshuffle(value);
+    }
+
+    public long decode(CharSequence code) {
+        return code == null ? INVALID : decode(code, 0, code.length());
+    }
+
+    private long shuffle(long id) {
+        if (roundKeys == null) {
+            return id;
+        }
+        long left = (id >>> HALF_BITS) & HALF_MASK;
+        long right = id & HALF_MASK;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long next = left ^ roundFunction(right, round);
+            left = right;
+            right = next;
+        }
+        return (id & ~SHUFFLED_MASK) | (left << HALF_BITS) | right;
+    }
+
+    private long unshuffle(long value) {
+        if (roundKeys == null) {
+            return value;
+        }
+        long left = (value >>> HALF_BITS) & HALF_MASK;
+        long right = value & HALF_MASK;
+        for (int round = ROUNDS - 1; round >= 0; round--) {
+            final long previous = right ^ roundFunction(left, round);
+            right = left;
+            left = previous;
+        }
+        return (value & ~SHUFFLED_MASK) | (left << HALF_BITS) | right;
+    }
+
+    private long roundFunction(long half, int round) {
+        return mix(half ^ roundKeys[round]) & HALF_MASK;
+    }
+
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
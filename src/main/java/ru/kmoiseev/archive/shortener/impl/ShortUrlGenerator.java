@@ -1,21 +1,124 @@
 package ru.kmoiseev.archive.shortener.impl;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author konstantinmoiseev
  * @since 24.01.2022
+ *
+ * Every thread takes a block of ids from the shared counter and hands them out locally, so the shared counter
+ * is touched once per block. Ids are unique but not ordered between threads, and ids left in the block
+ * of a finished thread are never used.
+ *
+ * With a {@link Reservation} ids are handed out only below the limit it has durably recorded, so after a crash
+ * the generator restarts above every id which could have been handed out. Limits are reserved well ahead,
+ * a thousand blocks at once, so recording them is rare.
  */
 public class ShortUrlGenerator {
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+    private static final int RESERVED_BLOCKS = 1024;
 
-    private final AtomicInteger increment = new AtomicInteger(1);
+    private final AtomicLong increment;
+    private final int blockSize;
+    private final Reservation reservation;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+    private volatile long reservedLimit;
 
-    String generateNext() {
-        final Integer toTranslate = increment.getAndIncrement();
-        return translateIntegerToString(toTranslate);
+    /**
+     * Records durably that ids below the limit may have been handed out.
+     */
+    public interface Reservation {
+        /**
+         * @return false if the limit could not be recorded
+         */
+        boolean reserve(long limit);
     }
 
-    private String translateIntegerToString(final Integer in) {
-        return in.toString();
+    public ShortUrlGenerator() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public ShortUrlGenerator(int blockSize) {
+        this(blockSize, 1);
+    }
+
+    /**
+     * Starts handing out from the first id, e.g. the high-water mark of the restored urls.
+     */
+    public ShortUrlGenerator(int blockSize, long firstId) {
+        this(blockSize, firstId, null);
+    }
+
+    /**
+     * Starts handing out from the first id, the high-water mark of the restored urls and reservations,
+     * and records the limits to hand out below with the reservation.
+     *
+     * @throws IllegalArgumentException if the block size is not positive
+     */
+    public ShortUrlGenerator(int blockSize, long firstId, Reservation reservation) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        this.increment = new AtomicLong(firstId);
+        this.reservation = reservation;
+        this.reservedLimit = firstId;
+    }
+
+    /**
+     * First id not taken by any block yet; every id handed out so far is below it.
+     */
+    public long getHighWaterMark() {
+        return increment.get();
+    }
+
+    /**
+     * @return {@link ShortCodeCodec#INVALID} if a new block is needed and cannot be reserved
+     */
+    long generateNext() {
+        final Block block = blocks.get();
+        if (block.next == block.end) {
+            final long first = take(blockSize);
+            if (first == ShortCodeCodec.INVALID) {
+                return ShortCodeCodec.INVALID;
+            }
+            block.next = first;
+            block.end = first + blockSize;
+        }
+        return block.next++;
+    }
+
+    /**
+     * Takes the count of consecutive ids from the shared counter at once.
+     *
+     * @return the first of the ids, {@link ShortCodeCodec#INVALID} if they cannot be reserved
+     */
+    long reserve(int count) {
+        return take(count);
+    }
+
+    private long take(int count) {
+        final long first = increment.getAndAdd(count);
+        if (reservation != null && first + count > reservedLimit && !reserveUpTo(first + count)) {
+            return ShortCodeCodec.INVALID;
+        }
+        return first;
+    }
+
+    private synchronized boolean reserveUpTo(long end) {
+        if (end <= reservedLimit) {
+            return true;
+        }
+        final long limit = Math.max(end, increment.get()) + (long) blockSize * RESERVED_BLOCKS;
+        if (!reservation.reserve(limit)) {
+            return false;
+        }
+        reservedLimit = limit;
+        return true;
+    }
+
+    private static class Block {
+        private long next;
+        private long end;
     }
 }
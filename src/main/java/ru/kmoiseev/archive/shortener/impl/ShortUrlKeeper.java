@@ -1,21 +1,21 @@
 package ru.kmoiseev.archive.shortener.impl;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * @author konstantinmoiseev
  * @since 24.01.2022
+ *
+ * Full urls by id; retrieving is safe concurrently with keeping.
  */
-public class ShortUrlKeeper {
-
-    private final Map<String,String> fullUrlByShortUrl = new HashMap<>();
+public interface ShortUrlKeeper {
+    /**
+     * @return false if the id or the url cannot be kept
+     */
+    boolean keep(long id, String fullUrl);
 
-    void keep(final String shortUrl, final String fullUrl) {
-        fullUrlByShortUrl.put(shortUrl, fullUrl);
-    }
+    String retrieve(long id);
 
-    String retrieve(final String shortUrl) {
-        return fullUrlByShortUrl.get(shortUrl);
-    }
+    /**
+     * Drops the url kept by the id, if any, when it cannot be handed out after all.
+     */
+    void forget(long id);
 }
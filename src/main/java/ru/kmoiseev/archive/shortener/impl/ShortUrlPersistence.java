@@ -0,0 +1,430 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Write-ahead log of the kept urls with group commit: records are appended to a buffer and written with one fsync
+ * every durability window by a background thread, so a crash loses at most the last window.
+ * Record is id, length, UTF-8 bytes of the url and CRC32 of them all; replay stops at the first torn record.
+ * Id reservations of the generator are records too, with the negated limit as the id and no url, and they are
+ * synced before the generator hands out the reserved ids, so those ids are never handed out again after a crash.
+ * If writing the log fails, appends and reservations fail from then on, so no url is shortened without the log;
+ * the failure is logged, and flushing and closing throw it.
+ *
+ * Once the log grows over the limit it is compacted: new records go to the next log file and every kept url
+ * is written to a snapshot, which replaces the logs before it. Snapshot n holds the reserved id limit
+ * and the urls of logs before n, so opening maps the latest snapshot and replays only the logs from n on.
+ * The snapshot is renamed into place and the directory synced, so a crash leaves either snapshot complete.
+ */
+public class ShortUrlPersistence {
+    private static final int SNAPSHOT_MAGIC = 0x53484f52;
+    private static final int RECORD_HEADER = Long.BYTES + Integer.BYTES;
+    private static final String LOG_PREFIX = "log-";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SUFFIX = ".dat";
+    private static final Logger LOGGER = Logger.getLogger(ShortUrlPersistence.class.getName());
+
+    private final Path directory;
+    private final long durabilityWindowMillis;
+    private final long snapshotLogBytes;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final CRC32 appendCrc = new CRC32();
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer writing = ByteBuffer.allocate(1 << 16);
+    private FileChannel log;
+    private int logIndex;
+    private long logBytes;
+    private long highWaterMark = 1;
+    private long lastAppendedId;
+    private volatile long reservedLimit;
+    private volatile Exception failure;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Receives the urls kept before, the latest url of an id last.
+     */
+    public interface Replay {
+        void kept(long id, String fullUrl);
+    }
+
+    private ShortUrlPersistence(Path directory, long durabilityWindowMillis, long snapshotLogBytes) {
+        this.directory = directory;
+        this.durabilityWindowMillis = durabilityWindowMillis;
+        this.snapshotLogBytes = snapshotLogBytes;
+    }
+
+    /**
+     * Replays the latest snapshot and the logs after it, then opens a new log.
+     */
+    @SneakyThrows
+    public static ShortUrlPersistence open(Path directory, long durabilityWindowMillis, long snapshotLogBytes,
+                                           Replay replay) {
+        Files.createDirectories(directory);
+        final ShortUrlPersistence persistence =
+                new ShortUrlPersistence(directory, durabilityWindowMillis, snapshotLogBytes);
+
+        final int snapshotIndex = latestIndex(directory, SNAPSHOT_PREFIX);
+        if (snapshotIndex >= 0) {
+            persistence.replaySnapshot(persistence.file(SNAPSHOT_PREFIX, snapshotIndex), replay);
+        }
+        final List<Integer> logIndexes = indexes(directory, LOG_PREFIX);
+        int lastLogIndex = Math.max(snapshotIndex, 0);
+        for (int index : logIndexes) {
+            if (index >= snapshotIndex) {
+                persistence.replayLog(persistence.file(LOG_PREFIX, index), replay);
+            }
+            lastLogIndex = Math.max(lastLogIndex, index + 1);
+        }
+        persistence.deleteBefore(snapshotIndex);
+
+        persistence.reservedLimit = persistence.highWaterMark;
+        persistence.logIndex = lastLogIndex;
+        persistence.log = persistence.openLog(lastLogIndex);
+        return persistence;
+    }
+
+    /**
+     * First id which was never handed out, as far as the replayed urls, reservations and the snapshot know.
+     */
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Starts group commits and compactions; the first failure of them stops both, and is logged and kept
+     * for the next caller, see {@link #getFailure()}.
+     */
+    public void start(ShortUrlKeeper keeper) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "short-url-persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            if (failure != null) {
+                return;
+            }
+            try {
+                flush();
+                if (logBytes > snapshotLogBytes) {
+                    snapshot(keeper);
+                }
+            } catch (Exception e) {
+                fail(e);
+            }
+        }, durabilityWindowMillis, durabilityWindowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Failure of writing the log, null while it is written.
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    /**
+     * Adds the url to the next group commit.
+     *
+     * @return false if the log has failed
+     */
+    public boolean append(long id, String fullUrl) {
+        final byte[] bytes = fullUrl.getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            if (failure != null) {
+                return false;
+            }
+            ensurePending(RECORD_HEADER + bytes.length + Integer.BYTES);
+            put(id, bytes);
+            return true;
+        }
+    }
+
+    /**
+     * Adds the first count urls to the same group commit, with no other records in between.
+     *
+     * @return false if the log has failed
+     */
+    public boolean appendAll(long[] ids, String[] fullUrls, int count) {
+        final byte[][] bytes = new byte[count][];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            bytes[i] = fullUrls[i].getBytes(StandardCharsets.UTF_8);
+            size += RECORD_HEADER + bytes[i].length + Integer.BYTES;
+        }
+        synchronized (this) {
+            if (failure != null) {
+                return false;
+            }
+            ensurePending(size);
+            for (int i = 0; i < count; i++) {
+                put(ids[i], bytes[i]);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Appends the reservation of the ids below the limit and syncs it with everything appended before,
+     * see {@link ShortUrlGenerator.Reservation}.
+     */
+    public boolean reserve(long limit) {
+        flushLock.lock();
+        try {
+            synchronized (this) {
+                if (failure != null) {
+                    return false;
+                }
+                ensurePending(RECORD_HEADER + Integer.BYTES);
+                put(-limit, new byte[0]);
+            }
+            flush();
+            reservedLimit = Math.max(reservedLimit, limit);
+            return true;
+        } catch (Exception e) {
+            fail(e);
+            return false;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes and syncs everything appended so far.
+     *
+     * @throws IllegalStateException if the log has failed
+     */
+    @SneakyThrows
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (failure != null) {
+                throw new IllegalStateException("Short url log has failed in " + directory, failure);
+            }
+            synchronized (this) {
+                final ByteBuffer appended = pending;
+                pending = writing;
+                writing = appended;
+            }
+            writing.flip();
+            if (writing.hasRemaining()) {
+                logBytes += writing.remaining();
+                while (writing.hasRemaining()) {
+                    log.write(writing);
+                }
+                log.force(false);
+            }
+            writing.clear();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Moves appends to the next log and writes every kept url to a snapshot replacing the logs before it.
+     * Urls appended while the snapshot is written are in the next log, so none is lost, some are kept twice.
+     * Urls appended before are up to the last appended id, read with the logs swapped, so the snapshot covers
+     * all of them and no more ids; it keeps the reserved limit, read with reservations waiting, as the high water mark.
+     */
+    @SneakyThrows
+    public void snapshot(ShortUrlKeeper keeper) {
+        final int snapshotIndex;
+        final long highWaterMark;
+        final long lastId;
+        flushLock.lock();
+        try {
+            flush();
+            log.close();
+            snapshotIndex = ++logIndex;
+            log = openLog(logIndex);
+            logBytes = 0;
+            highWaterMark = reservedLimit;
+            synchronized (this) {
+                lastId = lastAppendedId;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+
+        final Path temporary = directory.resolve(SNAPSHOT_PREFIX + snapshotIndex + ".tmp");
+        try (FileChannel snapshot = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(SNAPSHOT_MAGIC).putLong(highWaterMark);
+            final CRC32 crc = new CRC32();
+            for (long id = 1; id <= lastId; id++) {
+                final String fullUrl = keeper.retrieve(id);
+                if (fullUrl == null) {
+                    continue;
+                }
+                final byte[] bytes = fullUrl.getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < RECORD_HEADER + bytes.length + Integer.BYTES) {
+                    write(snapshot, buffer);
+                    if (buffer.capacity() < RECORD_HEADER + bytes.length + Integer.BYTES) {
+                        buffer = ByteBuffer.allocate(RECORD_HEADER + bytes.length + Integer.BYTES);
+                    }
+                }
+                final int start = buffer.position();
+                buffer.putLong(id).putInt(bytes.length).put(bytes);
+                crc.reset();
+                crc.update(buffer.array(), start, RECORD_HEADER + bytes.length);
+                buffer.putInt((int) crc.getValue());
+            }
+            write(snapshot, buffer);
+            snapshot.force(true);
+        }
+        Files.move(temporary, file(SNAPSHOT_PREFIX, snapshotIndex), StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        }
+        deleteBefore(snapshotIndex);
+    }
+
+    @SneakyThrows
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        try {
+            flush();
+        } finally {
+            log.close();
+        }
+    }
+
+    private void fail(Exception e) {
+        if (failure == null) {
+            failure = e;
+            LOGGER.log(Level.SEVERE, "Short url log has failed in " + directory + ", no url is shortened any more", e);
+        }
+    }
+
+    private void ensurePending(int size) {
+        if (pending.remaining() < size) {
+            final int capacity = Math.max(pending.capacity() * 2, pending.position() + size);
+            pending = ByteBuffer.allocate(capacity).put(pending.flip());
+        }
+    }
+
+    private void put(long id, byte[] bytes) {
+        lastAppendedId = Math.max(lastAppendedId, id);
+        final int start = pending.position();
+        pending.putLong(id).putInt(bytes.length).put(bytes);
+        appendCrc.reset();
+        appendCrc.update(pending.array(), start, RECORD_HEADER + bytes.length);
+        pending.putInt((int) appendCrc.getValue());
+    }
+
+    private void replaySnapshot(Path file, Replay replay) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (snapshot.remaining() < Integer.BYTES + Long.BYTES || snapshot.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a snapshot " + file);
+            }
+            highWaterMark = Math.max(highWaterMark, snapshot.getLong());
+            replayRecords(snapshot, replay);
+        }
+    }
+
+    private void replayLog(Path file, Replay replay) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            replayRecords(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), replay);
+        }
+    }
+
+    private void replayRecords(ByteBuffer records, Replay replay) {
+        final CRC32 crc = new CRC32();
+        while (records.remaining() >= RECORD_HEADER + Integer.BYTES) {
+            final int start = records.position();
+            final long id = records.getLong();
+            final int length = records.getInt();
+            if (length < 0 || records.remaining() < length + Integer.BYTES) {
+                return;
+            }
+            final byte[] bytes = new byte[length];
+            records.get(bytes);
+            crc.reset();
+            crc.update(records.duplicate().position(start).limit(start + RECORD_HEADER + length));
+            if (records.getInt() != (int) crc.getValue()) {
+                return;
+            }
+            if (id < 0) {
+                highWaterMark = Math.max(highWaterMark, -id);
+                continue;
+            }
+            replay.kept(id, new String(bytes, StandardCharsets.UTF_8));
+            highWaterMark = Math.max(highWaterMark, id + 1);
+            lastAppendedId = Math.max(lastAppendedId, id);
+        }
+    }
+
+    private FileChannel openLog(int index) throws IOException {
+        return FileChannel.open(file(LOG_PREFIX, index), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private void deleteBefore(int snapshotIndex) throws IOException {
+        for (int index : indexes(directory, LOG_PREFIX)) {
+            if (index < snapshotIndex) {
+                Files.deleteIfExists(file(LOG_PREFIX, index));
+            }
+        }
+        for (int index : indexes(directory, SNAPSHOT_PREFIX)) {
+            if (index < snapshotIndex) {
+                Files.deleteIfExists(file(SNAPSHOT_PREFIX, index));
+            }
+        }
+    }
+
+    private Path file(String prefix, int index) {
+        return directory.resolve(prefix + index + SUFFIX);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static int latestIndex(Path directory, String prefix) throws IOException {
+        final List<Integer> indexes = indexes(directory, prefix);
+        return indexes.isEmpty() ? -1 : indexes.get(indexes.size() - 1);
+    }
+
+    private static List<Integer> indexes(Path directory, String prefix) throws IOException {
+        final List<Integer> indexes = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(SUFFIX))
+                    .forEach(name -> indexes.add(Integer.parseInt(
+                            name.substring(prefix.length(), name.length() - SUFFIX.length()))));
+        }
+        indexes.sort(null);
+        return indexes;
+    }
+}
@@ -0,0 +1,153 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Reverse index of the kept urls: 64 bit hash of the url to its id, in open addressing tables of longs,
+ * 16 bytes a slot. The url itself is not stored again: a matching hash is checked against the kept url.
+ * A Bloom filter in front answers most of the new urls without probing the table.
+ *
+ * Tables are segmented by hash and locked per segment, so the same url is never added twice.
+ */
+public class UrlDeduplicator {
+    private static final int SEGMENTS = 64;
+    private static final int BLOOM_BITS_PER_URL = 10;
+    private static final int BLOOM_HASHES = 7;
+
+    private final ShortUrlKeeper keeper;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final AtomicLongArray bloomBits;
+    private final long bloomBitsCount;
+
+    public UrlDeduplicator(ShortUrlKeeper keeper, int expectedUrls) {
+        this.keeper = keeper;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+        final int bloomWords = (int) Math.max(1, ((long) expectedUrls * BLOOM_BITS_PER_URL + 63) / 64);
+        this.bloomBits = new AtomicLongArray(bloomWords);
+        this.bloomBitsCount = (long) bloomWords * 64;
+    }
+
+    /**
+     * Id of the url kept before, {@link ShortCodeCodec#INVALID} if there is none.
+     * The Bloom filter is read without the lock, so a url it has never seen takes no lock at all.
+     */
+    long find(String fullUrl) {
+        final long hash = hash(fullUrl);
+        if (!mightContain(hash)) {
+            return ShortCodeCodec.INVALID;
+        }
+        final Segment segment = segments[(int) (hash >>> 58)];
+        synchronized (segment) {
+            final long id = segment.find(hash, fullUrl);
+            return id == 0 ? ShortCodeCodec.INVALID : id;
+        }
+    }
+
+    /**
+     * Id of the url kept before, or the new id, which must keep the url.
+     * The Bloom filter is probed before taking the lock, so its reads are out of the critical section;
+     * only if it has not seen the url, it is probed again under the lock for the urls added meanwhile.
+     */
+    long idOf(String fullUrl, LongSupplier newId) {
+        final long hash = hash(fullUrl);
+        final boolean seen = mightContain(hash);
+        final Segment segment = segments[(int) (hash >>> 58)];
+        synchronized (segment) {
+            if (seen || mightContain(hash)) {
+                final long id = segment.find(hash, fullUrl);
+                if (id != 0) {
+                    return id;
+                }
+            }
+
+            final long id = newId.getAsLong();
+            if (id != ShortCodeCodec.INVALID) {
+                segment.add(hash, id);
+                addToBloom(hash);
+            }
+            return id;
+        }
+    }
+
+    private boolean mightContain(long hash) {
+        long combined = hash;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            final long bit = Math.floorMod(combined, bloomBitsCount);
+            if ((bloomBits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += hash >>> 32 | 1;
+        }
+        return true;
+    }
+
+    private void addToBloom(long hash) {
+        long combined = hash;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            final long bit = Math.floorMod(combined, bloomBitsCount);
+            bloomBits.getAndAccumulate((int) (bit >>> 6), 1L << bit, (word, mask) -> word | mask);
+            combined += hash >>> 32 | 1;
+        }
+    }
+
+    private static long hash(String url) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < url.length(); i++) {
+            hash = (hash ^ url.charAt(i)) * 0x100000001B3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Slot is empty when its id is 0, ids start from 1.
+     */
+    private class Segment {
+        private long[] hashes = new long[16];
+        private long[] ids = new long[16];
+        private int size;
+
+        private long find(long hash, String fullUrl) {
+            final int mask = ids.length - 1;
+            for (int slot = (int) hash & mask; ids[slot] != 0; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash && fullUrl.equals(keeper.retrieve(ids[slot]))) {
+                    return ids[slot];
+                }
+            }
+            return 0;
+        }
+
+        private void add(long hash, long id) {
+            if ((size + 1) << 1 > ids.length) {
+                final long[] oldHashes = hashes;
+                final long[] oldIds = ids;
+                hashes = new long[oldIds.length << 1];
+                ids = new long[oldIds.length << 1];
+                for (int i = 0; i < oldIds.length; i++) {
+                    if (oldIds[i] != 0) {
+                        insert(oldHashes[i], oldIds[i]);
+                    }
+                }
+            }
+            insert(hash, id);
+            size++;
+        }
+
+        private void insert(long hash, long id) {
+            final int mask = ids.length - 1;
+            int slot = (int) hash & mask;
+            while (ids[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            ids[slot] = id;
+        }
+    }
+}
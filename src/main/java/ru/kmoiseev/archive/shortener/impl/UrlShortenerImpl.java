@@ -2,6 +2,9 @@ package ru.kmoiseev.archive.shortener.impl;
 
 import ru.kmoiseev.archive.shortener.UrlShortener;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static java.util.Objects.isNull;
 
 /**
@@ -12,25 +15,210 @@ public class UrlShortenerImpl implements UrlShortener {
 
     private final String prefix = "https://mois-shortener.ru/";
 
-    private final ShortUrlGenerator generator = new ShortUrlGenerator();
-    private final ShortUrlKeeper keeper = new ShortUrlKeeper();
+    private final ShortUrlGenerator generator;
+    private final HotLinkCache hotLinks;
+    /**
+     * Urls are kept and resolved through the hot links cache in front of the keeper, if there is one.
+     */
+    private final ShortUrlKeeper urls;
+    private final ShortCodeCodec codec;
+    private final UrlDeduplicator deduplicator;
+    private final ShortUrlPersistence persistence;
+
+    public UrlShortenerImpl() {
+        this(UrlShortenerSettings.builder().build());
+    }
+
+    public UrlShortenerImpl(ShortCodeCodec codec) {
+        this(UrlShortenerSettings.builder().codec(codec).build());
+    }
+
+    public UrlShortenerImpl(UrlShortenerSettings settings) {
+        this(settings, settings.isOffHeap() ? new OffHeapShortUrlKeeper() : new HeapShortUrlKeeper());
+    }
+
+    UrlShortenerImpl(UrlShortenerSettings settings, ShortUrlKeeper keeper) {
+        this.codec = settings.getCodec();
+        this.hotLinks = settings.getHotLinks() > 0 ? new HotLinkCache(keeper, settings.getHotLinks()) : null;
+        this.urls = hotLinks == null ? keeper : hotLinks;
+        this.deduplicator = settings.isDeduplicate() ? new UrlDeduplicator(keeper, settings.getExpectedUrls()) : null;
+        if (isNull(settings.getPersistenceDirectory())) {
+            this.persistence = null;
+            this.generator = new ShortUrlGenerator(settings.getIdBlockSize());
+            return;
+        }
+
+        this.persistence = ShortUrlPersistence.open(settings.getPersistenceDirectory(),
+                settings.getDurabilityWindowMillis(), settings.getSnapshotLogBytes(), this::restore);
+        this.generator = new ShortUrlGenerator(settings.getIdBlockSize(), persistence.getHighWaterMark(),
+                persistence::reserve);
+        persistence.start(keeper);
+    }
+
+    private void restore(long id, String fullUrl) {
+        urls.keep(id, fullUrl);
+        if (deduplicator != null) {
+            deduplicator.idOf(fullUrl, () -> id);
+        }
+    }
 
     @Override
     public String shortenUrl(String fullUrl) {
-        if (isNull(fullUrl) || fullUrl.isBlank()) {
+        if (!isValid(fullUrl)) {
             return null;
         }
-        final String urlShort = generator.generateNext();
-        keeper.keep(urlShort, fullUrl);
-        return prefix + urlShort;
+        final long id = deduplicator == null ? keepNew(fullUrl) : deduplicator.idOf(fullUrl, () -> keepNew(fullUrl));
+        return id == ShortCodeCodec.INVALID ? null : shortUrlOf(id);
+    }
+
+    /**
+     * Takes the ids of the whole batch at once, one per non-blank url not shortened before, and writes the kept urls
+     * to the log together. A url repeated in the batch or shortened concurrently may still leave its id unused.
+     * If the log fails, the urls kept by the batch are forgotten and their short urls are null.
+     */
+    @Override
+    public List<String> shortenAll(List<String> fullUrls) {
+        if (isNull(fullUrls)) {
+            return null;
+        }
+        final int count = fullUrls.size();
+        final String[] shortUrls = new String[count];
+        final int[] missPositions = new int[count];
+        int missCount = 0;
+        for (int i = 0; i < count; i++) {
+            final String fullUrl = fullUrls.get(i);
+            if (!isValid(fullUrl)) {
+                continue;
+            }
+            final long id = deduplicator == null ? ShortCodeCodec.INVALID : deduplicator.find(fullUrl);
+            if (id == ShortCodeCodec.INVALID) {
+                missPositions[missCount++] = i;
+            } else {
+                shortUrls[i] = shortUrlOf(id);
+            }
+        }
+        if (missCount == 0) {
+            return Arrays.asList(shortUrls);
+        }
+        final long firstId = generator.reserve(missCount);
+        if (firstId == ShortCodeCodec.INVALID) {
+            return Arrays.asList(shortUrls);
+        }
+        final long[] missIds = new long[missCount];
+        final long[] keptIds = new long[missCount];
+        final String[] keptUrls = new String[missCount];
+        int keptCount = 0;
+        for (int miss = 0; miss < missCount; miss++) {
+            final String fullUrl = fullUrls.get(missPositions[miss]);
+            final long reservedId = firstId + miss;
+            final long id = deduplicator == null
+                    ? keepReserved(reservedId, fullUrl)
+                    : deduplicator.idOf(fullUrl, () -> keepReserved(reservedId, fullUrl));
+            missIds[miss] = id;
+            if (id == ShortCodeCodec.INVALID) {
+                continue;
+            }
+            if (id == reservedId) {
+                keptIds[keptCount] = id;
+                keptUrls[keptCount++] = fullUrl;
+            }
+            shortUrls[missPositions[miss]] = shortUrlOf(id);
+        }
+        if (persistence != null && keptCount > 0 && !persistence.appendAll(keptIds, keptUrls, keptCount)) {
+            for (int kept = 0; kept < keptCount; kept++) {
+                urls.forget(keptIds[kept]);
+            }
+            for (int miss = 0; miss < missCount; miss++) {
+                if (missIds[miss] >= firstId && missIds[miss] < firstId + missCount) {
+                    shortUrls[missPositions[miss]] = null;
+                }
+            }
+        }
+        return Arrays.asList(shortUrls);
+    }
+
+    private static boolean isValid(String fullUrl) {
+        return !isNull(fullUrl) && !fullUrl.isBlank();
+    }
+
+    private String shortUrlOf(long id) {
+        final StringBuilder urlShort = new StringBuilder(prefix.length() + ShortCodeCodec.MAX_CODE_LENGTH);
+        codec.appendTo(id, urlShort.append(prefix));
+        return urlShort.toString();
+    }
+
+    private long keepReserved(long id, String fullUrl) {
+        return urls.keep(id, fullUrl) ? id : ShortCodeCodec.INVALID;
+    }
+
+    private long keepNew(String fullUrl) {
+        final long id = generator.generateNext();
+        if (id == ShortCodeCodec.INVALID || !urls.keep(id, fullUrl)) {
+            return ShortCodeCodec.INVALID;
+        }
+        if (persistence != null && !persistence.append(id, fullUrl)) {
+            urls.forget(id);
+            return ShortCodeCodec.INVALID;
+        }
+        return id;
     }
 
     @Override
     public String resolveShortenedUrl(String shortenedUrl) {
-        if (isNull(shortenedUrl) || shortenedUrl.isBlank()) {
+        return isNull(shortenedUrl) ? null : resolveShortenedUrl(shortenedUrl, 0, shortenedUrl.length());
+    }
+
+    @Override
+    public List<String> resolveAll(List<String> shortenedUrls) {
+        if (isNull(shortenedUrls)) {
             return null;
         }
-        final String urlShortenedNoPrefix = shortenedUrl.replace(prefix,"");
-        return keeper.retrieve(urlShortenedNoPrefix);
+        final String[] fullUrls = new String[shortenedUrls.size()];
+        for (int i = 0; i < fullUrls.length; i++) {
+            fullUrls[i] = resolveShortenedUrl(shortenedUrls.get(i));
+        }
+        return Arrays.asList(fullUrls);
+    }
+
+    /**
+     * Resolves the short url, or just its code, within the characters from and to, e.g. of a request line.
+     * The code is decoded in place, so nothing is allocated besides what the keeper needs to retrieve the url.
+     */
+    public String resolveShortenedUrl(CharSequence shortenedUrl, int from, int to) {
+        final int codeFrom = startsWithPrefix(shortenedUrl, from, to) ? from + prefix.length() : from;
+        final long id = codec.decode(shortenedUrl, codeFrom, to);
+        return id == ShortCodeCodec.INVALID ? null : urls.retrieve(id);
+    }
+
+    private boolean startsWithPrefix(CharSequence url, int from, int to) {
+        if (to - from < prefix.length()) {
+            return false;
+        }
+        if (url instanceof String) {
+            return ((String) url).regionMatches(from, prefix, 0, prefix.length());
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (url.charAt(from + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hit ratio of the hot links cache, null when there is no cache.
+     */
+    public HotLinkStats getHotLinkStats() {
+        return hotLinks == null ? null : hotLinks.getStats();
+    }
+
+    /**
+     * Syncs the urls shortened in the last durability window and stops persisting.
+     */
+    @Override
+    public void shutdown() {
+        if (persistence != null) {
+            persistence.close();
+        }
     }
 }
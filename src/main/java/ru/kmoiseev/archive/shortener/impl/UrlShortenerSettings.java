@@ -0,0 +1,52 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.nio.file.Path;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * Options of {@link UrlShortenerImpl}; the defaults are plain base62 codes and a new code for every shortening.
+ */
+@Value
+@Builder
+public class UrlShortenerSettings {
+    @Builder.Default
+    ShortCodeCodec codec = new ShortCodeCodec();
+    @Builder.Default
+    int idBlockSize = ShortUrlGenerator.DEFAULT_BLOCK_SIZE;
+    /**
+     * Urls are kept out of the heap, see {@link OffHeapShortUrlKeeper}.
+     */
+    boolean offHeap;
+    /**
+     * Shortening a url shortened before gives the same code.
+     */
+    boolean deduplicate;
+    /**
+     * Distinct urls expected when deduplicating, sizes the Bloom filter.
+     */
+    @Builder.Default
+    int expectedUrls = 1 << 20;
+    /**
+     * Directory of the log and snapshots of the urls, see {@link ShortUrlPersistence}; null keeps them in memory only.
+     */
+    Path persistenceDirectory;
+    /**
+     * Urls shortened within the window are synced to the log together, and lost together on a crash.
+     */
+    @Builder.Default
+    long durabilityWindowMillis = 5;
+    /**
+     * Log size after which it is compacted into a snapshot.
+     */
+    @Builder.Default
+    long snapshotLogBytes = 64 << 20;
+    /**
+     * Most resolved urls cached on heap in front of the keeper, see {@link HotLinkCache}; 0 is no cache.
+     */
+    int hotLinks;
+}
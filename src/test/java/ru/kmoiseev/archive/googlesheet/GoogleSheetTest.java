@@ -2,11 +2,23 @@ package ru.kmoiseev.archive.googlesheet;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.kmoiseev.archive.googlesheet.impl.CsvImporter;
 import ru.kmoiseev.archive.googlesheet.impl.GoogleSheetImpl;
 
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -14,11 +26,15 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  * @since 25.01.2022
  */
 public class GoogleSheetTest {
-    private GoogleSheet googleSheet;
+    protected GoogleSheet googleSheet;
+
+    protected GoogleSheet createGoogleSheet() {
+        return new GoogleSheetImpl();
+    }
 
     @BeforeEach
     void beforeEach() {
-        googleSheet = new GoogleSheetImpl();
+        googleSheet = createGoogleSheet();
     }
 
     // --- PUTTING VALID/INVALID VALUE ---
@@ -63,6 +79,17 @@ public class GoogleSheetTest {
         assertFalse(googleSheet.putValue("ADDR", "21441AN"));
     }
 
+    @Test
+    void cannotAddCellValueOverflowingLong() {
+        assertFalse(googleSheet.putValue("ADDR", "9999999999999999999"));
+    }
+
+    @Test
+    void canAddCellValueLongMinimum() {
+        assertTrue(googleSheet.putValue("ADDR", "-9223372036854775808"));
+        assertEquals(Long.MIN_VALUE, googleSheet.evaluate("ADDR"));
+    }
+
     // --- PUTTING VALID/INVALID REF VALUE ---
 
     @Test
@@ -75,6 +102,11 @@ public class GoogleSheetTest {
         assertFalse(googleSheet.putValue("ADDR", "="));
     }
 
+    @Test
+    void cannotAddCellRefTooLong() {
+        assertFalse(googleSheet.putValue("ADDR", "=" + "A".repeat(257)));
+    }
+
     @Test
     void canAddCellRefValid() {
         assertTrue(googleSheet.putValue("ADDR", "=ADDRNEXT"));
@@ -97,6 +129,11 @@ public class GoogleSheetTest {
         assertFalse(googleSheet.putValue("ADDR", "=ADF+"));
     }
 
+    @Test
+    void cannotAddCellSumOfThree() {
+        assertFalse(googleSheet.putValue("ADDR", "=A+B+C"));
+    }
+
     @Test
     void canAddCellSumCorrect() {
         assertTrue(googleSheet.putValue("ADDR", "=ADF+BAD"));
@@ -189,4 +226,486 @@ public class GoogleSheetTest {
 
         assertEquals(-4L, googleSheet.evaluate("A1"));
     }
+
+    // --- RECALCULATION ---
+
+    @Test
+    void dependentCellRecalculatedAfterReferencedCellChanged() {
+        googleSheet.putValue("A1", "=B1+C1");
+        googleSheet.putValue("B1", "=D1");
+        googleSheet.putValue("C1", "5");
+        googleSheet.putValue("D1", "1");
+        assertEquals(6L, googleSheet.evaluate("A1"));
+
+        googleSheet.putValue("D1", "10");
+
+        assertEquals(10L, googleSheet.evaluate("B1"));
+        assertEquals(15L, googleSheet.evaluate("A1"));
+    }
+
+    @Test
+    void dependentCellRecalculatedAfterMissingCellAdded() {
+        googleSheet.putValue("A1", "=B1");
+        assertEquals(0L, googleSheet.evaluate("A1"));
+
+        googleSheet.putValue("B1", "7");
+
+        assertEquals(7L, googleSheet.evaluate("A1"));
+    }
+
+    @Test
+    void replacedReferenceNoLongerAffectsCell() {
+        googleSheet.putValue("A1", "=B1");
+        googleSheet.putValue("B1", "1");
+        googleSheet.putValue("C1", "2");
+        assertEquals(1L, googleSheet.evaluate("A1"));
+
+        googleSheet.putValue("A1", "=C1");
+        googleSheet.putValue("B1", "100");
+
+        assertEquals(2L, googleSheet.evaluate("A1"));
+    }
+
+    @Test
+    void cycleBrokenByUpdateEvalCorrectly() {
+        googleSheet.putValue("A1", "=B1");
+        googleSheet.putValue("B1", "=A1");
+        assertNull(googleSheet.evaluate("A1"));
+
+        googleSheet.putValue("B1", "3");
+
+        assertEquals(3L, googleSheet.evaluate("A1"));
+    }
+
+    @Test
+    void sameCellReferencedTwiceEvalCorrectly() {
+        googleSheet.putValue("A1", "=B1+B1");
+        googleSheet.putValue("B1", "4");
+
+        assertEquals(8L, googleSheet.evaluate("A1"));
+    }
+
+    @Test
+    void longReferenceChainEvalCorrectly() {
+        final int chainLength = 1_000_000;
+        googleSheet.putValue("A0", "1");
+        for (int i = 1; i < chainLength; i++) {
+            googleSheet.putValue("A" + i, "=A" + (i - 1) + "+X");
+        }
+        googleSheet.putValue("X", "1");
+
+        assertEquals(chainLength, googleSheet.evaluate("A" + (chainLength - 1)));
+
+        googleSheet.putValue("X", "2");
+
+        assertEquals(2L * chainLength - 1, googleSheet.evaluate("A" + (chainLength - 1)));
+    }
+
+    @Test
+    void selfReferencedCellCannotBeEvaluated() {
+        googleSheet.putValue("A1", "=A1+B1");
+
+        assertNull(googleSheet.evaluate("A1"));
+        assertNull(googleSheet.evaluate("A1"));
+    }
+
+    @Test
+    void cellReferringToCycleCannotBeEvaluated() {
+        googleSheet.putValue("A1", "=B1");
+        googleSheet.putValue("B1", "=C1+D1");
+        googleSheet.putValue("C1", "=B1");
+        googleSheet.putValue("D1", "1");
+
+        assertNull(googleSheet.evaluate("C1"));
+        assertNull(googleSheet.evaluate("A1"));
+        assertEquals(1L, googleSheet.evaluate("D1"));
+
+        googleSheet.putValue("C1", "2");
+
+        assertEquals(3L, googleSheet.evaluate("A1"));
+    }
+
+    // --- BATCH ---
+
+    @Test
+    void batchOfValuesPutAndEvalCorrectly() {
+        googleSheet.putValue("A1", "=B1+C1");
+
+        assertTrue(googleSheet.putValues(Map.of("B1", "2", "C1", "=D1", "D1", "3")));
+
+        assertEquals(5L, googleSheet.evaluate("A1"));
+    }
+
+    @Test
+    void batchWithInvalidValueNotApplied() {
+        googleSheet.putValue("A1", "1");
+
+        assertFalse(googleSheet.putValues(Map.of("A1", "2", "B1", "=+")));
+
+        assertEquals(1L, googleSheet.evaluate("A1"));
+        assertEquals(0L, googleSheet.evaluate("B1"));
+    }
+
+    @Test
+    void batchWithInvalidAddressNotApplied() {
+        final Map<String, String> values = new HashMap<>();
+        values.put("A1", "2");
+        values.put(null, "3");
+
+        assertFalse(googleSheet.putValues(values));
+        assertEquals(0L, googleSheet.evaluate("A1"));
+    }
+
+    @Test
+    void nullBatchCannotBePut() {
+        assertFalse(googleSheet.putValues(null));
+    }
+
+    @Test
+    void committedBatchRecalculatesDependents() {
+        googleSheet.putValue("A1", "=B1");
+        googleSheet.putValue("B1", "=C1+D1");
+        googleSheet.putValue("C1", "1");
+        googleSheet.putValue("D1", "1");
+        assertEquals(2L, googleSheet.evaluate("A1"));
+
+        final boolean committed = googleSheet.beginBatch()
+                .putValue("C1", "10")
+                .putValue("D1", "=E1")
+                .putValue("E1", "20")
+                .commit();
+
+        assertTrue(committed);
+        assertEquals(30L, googleSheet.evaluate("A1"));
+    }
+
+    // --- RANGES ---
+
+    @Test
+    void canAddCellRangeAggregates() {
+        assertTrue(googleSheet.putValue("ADDR", "=SUM(A1:B100)"));
+        assertTrue(googleSheet.putValue("ADDR", "=MIN(B100:A1)"));
+        assertTrue(googleSheet.putValue("ADDR", "=MAX(AA1:AZ3)"));
+        assertTrue(googleSheet.putValue("ADDR", "=COUNT(A1:A1)"));
+    }
+
+    @Test
+    void cannotAddCellRangeInvalid() {
+        assertFalse(googleSheet.putValue("ADDR", "=AVG(A1:B2)"));
+        assertFalse(googleSheet.putValue("ADDR", "=SUM(A1)"));
+        assertFalse(googleSheet.putValue("ADDR", "=SUM(A1:B)"));
+        assertFalse(googleSheet.putValue("ADDR", "=SUM(A0:B2)"));
+        assertFalse(googleSheet.putValue("ADDR", "=SUM(a1:b2)"));
+        assertFalse(googleSheet.putValue("ADDR", "=SUM(A1:B2"));
+        assertFalse(googleSheet.putValue("ADDR", "=SUM(A1:B2))"));
+    }
+
+    @Test
+    void cannotAddCellReferringToAnotherSheet() {
+        assertFalse(googleSheet.putValue("A1", "=Other!B1"));
+        assertFalse(googleSheet.putValue("A1", "=B1+Other!B1"));
+        assertFalse(googleSheet.putValue("A1", "=Other!B1+B1"));
+        assertEquals(0L, googleSheet.evaluate("A1"));
+    }
+
+    @Test
+    void rangeAggregatesEvalCorrectly() {
+        googleSheet.putValue("A1", "5");
+        googleSheet.putValue("A2", "-3");
+        googleSheet.putValue("B1", "=A1+A2");
+        googleSheet.putValue("B3", "=C1");
+        googleSheet.putValue("C1", "10");
+        googleSheet.putValue("D1", "100");
+
+        assertEquals(14L, evaluateAt("=SUM(A1:B3)"));
+        assertEquals(-3L, evaluateAt("=MIN(B3:A1)"));
+        assertEquals(10L, evaluateAt("=MAX(A1:B3)"));
+        assertEquals(4L, evaluateAt("=COUNT(A1:B3)"));
+        assertEquals(0L, evaluateAt("=SUM(X1:Y3)"));
+        assertEquals(0L, evaluateAt("=MIN(X1:Y3)"));
+    }
+
+    @Test
+    void rangeRecalculatedAfterCellInRangeChanged() {
+        googleSheet.putValue("TOTAL", "=SUM(A1:A1000)");
+        googleSheet.putValue("RESULT", "=TOTAL+B1");
+        for (int row = 1; row <= 1000; row++) {
+            googleSheet.putValue("A" + row, "1");
+        }
+        assertEquals(1000L, googleSheet.evaluate("RESULT"));
+
+        googleSheet.putValue("A500", "=B1");
+        googleSheet.putValue("B1", "101");
+
+        assertEquals(1100L + 101L, googleSheet.evaluate("RESULT"));
+
+        googleSheet.putValue("A1001", "1000");
+        googleSheet.putValue("A1000", "-1");
+
+        assertEquals(1100L + 101L - 2L, googleSheet.evaluate("RESULT"));
+    }
+
+    @Test
+    void rangeOverFarRowsEvalCorrectly() {
+        googleSheet.putValue("A1", "1");
+        googleSheet.putValue("A900000000", "2");
+        googleSheet.putValue("A1073741823", "3");
+
+        assertEquals(6L, evaluateAt("=SUM(A1:A1073741823)"));
+        assertEquals(2L, evaluateAt("=SUM(A2:A1073741822)"));
+        assertEquals(3L, evaluateAt("=MAX(A900000000:B1073741823)"));
+    }
+
+    @Test
+    void rangeWatchedAgainAfterRemovedEvalCorrectly() {
+        googleSheet.putValue("A1", "1");
+        googleSheet.putValue("A2", "2");
+        googleSheet.putValue("TOTAL", "=SUM(A1:A2)");
+        assertEquals(3L, googleSheet.evaluate("TOTAL"));
+
+        googleSheet.putValue("TOTAL", "0");
+        googleSheet.putValue("A2", "20");
+        googleSheet.putValue("A3", "300");
+        googleSheet.putValue("TOTAL", "=SUM(A1:A3)");
+        assertEquals(321L, googleSheet.evaluate("TOTAL"));
+
+        googleSheet.putValue("A1", "=A3");
+        assertEquals(620L, googleSheet.evaluate("TOTAL"));
+    }
+
+    @Test
+    void overlappingNarrowAndWideRangesInvalidatedCorrectly() {
+        googleSheet.putValue("NARROW", "=SUM(B2:C3)");
+        googleSheet.putValue("WIDE", "=SUM(A1:ZZ2)");
+        googleSheet.putValue("TALL", "=COUNT(C1:C100)");
+        googleSheet.putValue("C2", "5");
+        assertEquals(5L, googleSheet.evaluate("NARROW"));
+        assertEquals(5L, googleSheet.evaluate("WIDE"));
+        assertEquals(1L, googleSheet.evaluate("TALL"));
+
+        googleSheet.putValue("C3", "7");
+        googleSheet.putValue("ZZ1", "11");
+        assertEquals(12L, googleSheet.evaluate("NARROW"));
+        assertEquals(16L, googleSheet.evaluate("WIDE"));
+        assertEquals(2L, googleSheet.evaluate("TALL"));
+
+        googleSheet.putValue("NARROW", "0");
+        googleSheet.putValue("C2", "1");
+        assertEquals(12L, googleSheet.evaluate("WIDE"));
+        assertEquals(2L, googleSheet.evaluate("TALL"));
+    }
+
+    @Test
+    void rangeOverCellsEvaluatedBeforeEvalCorrectly() {
+        googleSheet.putValue("A1", "5");
+        googleSheet.putValue("A2", "=A1+A1");
+        googleSheet.putValue("A3", "=A3");
+        googleSheet.putValue("B1", String.valueOf(Long.MAX_VALUE));
+        googleSheet.putValue("B2", "=B1+B1");
+        assertEquals(10L, googleSheet.evaluate("A2"));
+        assertNull(googleSheet.evaluate("A3"));
+        assertNull(googleSheet.evaluate("B2"));
+
+        assertEquals(15L, evaluateAt("=SUM(A1:A2)"));
+        assertNull(evaluateAt("=SUM(A1:A3)"));
+        assertNull(evaluateAt("=MAX(B1:B2)"));
+        assertEquals(2L, evaluateAt("=COUNT(B1:B2)"));
+
+        googleSheet.putValue("A3", "1");
+        googleSheet.putValue("A4", "4");
+        assertEquals(20L, evaluateAt("=SUM(A1:A4)"));
+    }
+
+    @Test
+    void rangeContainingItselfCannotBeEvaluated() {
+        googleSheet.putValue("A1", "1");
+        googleSheet.putValue("A2", "=SUM(A1:A3)");
+
+        assertNull(googleSheet.evaluate("A2"));
+
+        googleSheet.putValue("A2", "2");
+        googleSheet.putValue("B1", "=SUM(A1:A3)");
+
+        assertEquals(3L, googleSheet.evaluate("B1"));
+    }
+
+    @Test
+    void rangeWithCycleInsideCannotBeEvaluated() {
+        googleSheet.putValue("A1", "=SUMCELL");
+        googleSheet.putValue("SUMCELL", "=MAX(A1:A5)");
+        googleSheet.putValue("A2", "7");
+
+        assertNull(googleSheet.evaluate("SUMCELL"));
+        assertNull(googleSheet.evaluate("A1"));
+        assertEquals(7L, googleSheet.evaluate("A2"));
+    }
+
+    // --- CSV ---
+
+    @Test
+    void csvImportedIntoA1Cells() {
+        final String csv = "1,2,=A1+B1\r\n" +
+                ",\"=SUM(A1:C1)\",\"=C1\"\n" +
+                "-4,,=A3+A3";
+
+        assertTrue(new CsvImporter(2).importInto(googleSheet, csvChannel(csv)));
+
+        assertEquals(3L, googleSheet.evaluate("C1"));
+        assertEquals(6L, googleSheet.evaluate("B2"));
+        assertEquals(3L, googleSheet.evaluate("C2"));
+        assertEquals(-8L, googleSheet.evaluate("C3"));
+        assertEquals(0L, googleSheet.evaluate("A2"));
+    }
+
+    @Test
+    void csvWithInvalidValueStopsImport() {
+        assertFalse(new CsvImporter().importInto(googleSheet, csvChannel("1,2\n3,=+\n")));
+        assertEquals(0L, googleSheet.evaluate("A1"));
+    }
+
+    @Test
+    void csvLargerThanBufferImportedCorrectly() {
+        final StringBuilder csv = new StringBuilder();
+        final int rows = 20_000;
+        for (int row = 1; row <= rows; row++) {
+            csv.append(row).append(',').append("=A").append(row).append("+A").append(row).append('\n');
+        }
+        csv.append(",=SUM(B1:B").append(rows).append(")\n");
+
+        assertTrue(new CsvImporter().importInto(googleSheet, csvChannel(csv.toString())));
+
+        assertEquals((long) rows * (rows + 1), googleSheet.evaluate("B" + (rows + 1)));
+    }
+
+    @Test
+    void csvWithNonAsciiBytesStopsImport() {
+        final byte[] csv = "1,2\n\"\u00e9\",3\n".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(new CsvImporter(1).importInto(googleSheet, Channels.newChannel(new ByteArrayInputStream(csv))));
+        assertEquals(2L, googleSheet.evaluate("B1"));
+        assertEquals(0L, googleSheet.evaluate("B2"));
+    }
+
+    @Test
+    void csvWithTextAfterClosingQuoteStopsImport() {
+        assertFalse(new CsvImporter().importInto(googleSheet, csvChannel("\"1\"2,3\n")));
+        assertEquals(0L, googleSheet.evaluate("A1"));
+        assertEquals(0L, googleSheet.evaluate("B1"));
+    }
+
+    @Test
+    void csvWithUnclosedQuoteStopsImport() {
+        assertFalse(new CsvImporter().importInto(googleSheet, csvChannel("1,\"2\n")));
+        assertEquals(0L, googleSheet.evaluate("A1"));
+    }
+
+    @Test
+    void csvImporterNeedsPositiveBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> new CsvImporter(0));
+    }
+
+    private static ReadableByteChannel csvChannel(String csv) {
+        return Channels.newChannel(new ByteArrayInputStream(csv.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    // --- SUBSCRIPTIONS ---
+
+    @Test
+    void cannotSubscribeToInvalidAddress() {
+        assertNull(googleSheet.subscribe(" ", value -> {}));
+        assertNull(googleSheet.subscribe(null, value -> {}));
+    }
+
+    @Test
+    void subscriberNotifiedOnlyWhenValueChanges() {
+        final List<Long> notified = new ArrayList<>();
+        googleSheet.putValue("A1", "=B1+C1");
+        googleSheet.putValue("B1", "1");
+        googleSheet.subscribe("A1", notified::add);
+
+        googleSheet.putValue("C1", "2");
+        googleSheet.putValue("C1", "2");
+        googleSheet.putValue("UNRELATED", "5");
+        googleSheet.putValues(Map.of("B1", "2", "C1", "1"));
+        googleSheet.putValue("B1", "=A1");
+        googleSheet.putValue("B1", "10");
+
+        assertEquals(Arrays.asList(3L, null, 11L), notified);
+    }
+
+    @Test
+    void subscriberOfRangeNotifiedWhenCellInRangeChanges() {
+        final List<Long> notified = new ArrayList<>();
+        googleSheet.subscribe("TOTAL", notified::add);
+        googleSheet.putValue("TOTAL", "=SUM(A1:A10)");
+
+        googleSheet.putValue("A5", "5");
+        googleSheet.putValue("A11", "100");
+        googleSheet.putValue("A1", "=A11");
+
+        assertEquals(Arrays.asList(5L, 105L), notified);
+    }
+
+    @Test
+    void cancelledSubscriberNotNotified() {
+        final List<Long> notified = new ArrayList<>();
+        final Subscription subscription = googleSheet.subscribe("A1", notified::add);
+        googleSheet.putValue("A1", "1");
+
+        subscription.cancel();
+        googleSheet.putValue("A1", "2");
+
+        assertEquals(List.of(1L), notified);
+    }
+
+    @Test
+    void subscriberSeesNotifiedValueWhenEvaluating() {
+        final List<Long> evaluated = new ArrayList<>();
+        googleSheet.putValue("A1", "=B1");
+        googleSheet.subscribe("A1", value -> evaluated.add(googleSheet.evaluate("A1")));
+
+        googleSheet.putValue("B1", "42");
+
+        assertEquals(List.of(42L), evaluated);
+    }
+
+    // --- OVERFLOW ---
+
+    @Test
+    void sumOverflowingLongEvaluatesToNull() {
+        googleSheet.putValue("A1", String.valueOf(Long.MAX_VALUE));
+        googleSheet.putValue("A2", "1");
+        googleSheet.putValue("SUM", "=A1+A2");
+        googleSheet.putValue("REF", "=SUM");
+        assertNull(googleSheet.evaluate("SUM"));
+        assertNull(googleSheet.evaluate("REF"));
+
+        googleSheet.putValue("A2", "-1");
+        assertEquals(Long.MAX_VALUE - 1, googleSheet.evaluate("REF"));
+    }
+
+    @Test
+    void rangeSumOverflowingLongEvaluatesToNull() {
+        googleSheet.putValue("A1", String.valueOf(Long.MAX_VALUE));
+        googleSheet.putValue("A2", String.valueOf(Long.MAX_VALUE));
+        assertNull(evaluateAt("=SUM(A1:A2)"));
+
+        googleSheet.putValue("A3", String.valueOf(Long.MIN_VALUE));
+        googleSheet.putValue("A4", String.valueOf(Long.MIN_VALUE));
+        assertEquals(-2L, evaluateAt("=SUM(A1:A4)"));
+        assertEquals(4L, evaluateAt("=COUNT(A1:A4)"));
+    }
+
+    @Test
+    void rangeOfOverflowedCellEvaluatesToNullExceptCount() {
+        googleSheet.putValue("A1", String.valueOf(Long.MAX_VALUE));
+        googleSheet.putValue("A2", "=A1+A1");
+        assertNull(evaluateAt("=MAX(A1:A2)"));
+        assertEquals(2L, evaluateAt("=COUNT(A1:A2)"));
+    }
+
+    private Long evaluateAt(String value) {
+        googleSheet.putValue("RESULT", value);
+        return googleSheet.evaluate("RESULT");
+    }
 }
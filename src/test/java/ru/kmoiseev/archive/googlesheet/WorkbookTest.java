@@ -0,0 +1,261 @@
+package ru.kmoiseev.archive.googlesheet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kmoiseev.archive.googlesheet.impl.WorkbookImpl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+public class WorkbookTest {
+    private Workbook workbook;
+
+    @BeforeEach
+    void beforeEach() {
+        workbook = new WorkbookImpl(4);
+    }
+
+    @AfterEach
+    void afterEach() {
+        workbook.shutdown();
+    }
+
+    @Test
+    void sheetNamesMustBeValidAndUnique() {
+        assertNotNull(workbook.addSheet("Sheet1"));
+        assertNull(workbook.addSheet("Sheet1"));
+        assertNull(workbook.addSheet("Sheet 2"));
+        assertNull(workbook.addSheet("Sheet!2"));
+        assertNull(workbook.addSheet(""));
+        assertNull(workbook.addSheet(null));
+        assertNull(workbook.getSheet("Absent"));
+    }
+
+    @Test
+    void cellReferringToAnotherSheetFollowsItsChanges() {
+        final GoogleSheet first = workbook.addSheet("First");
+        final GoogleSheet second = workbook.addSheet("Second");
+        assertTrue(first.putValue("A1", "=Second!A1+B1"));
+        first.putValue("B1", "2");
+        assertEquals(2L, first.evaluate("A1"));
+
+        second.putValue("A1", "40");
+        assertEquals(42L, first.evaluate("A1"));
+        assertEquals(40L, first.evaluate("Second!A1"));
+
+        second.putValue("A1", "=C1+C2");
+        second.putValue("C1", "10");
+        assertEquals(12L, first.evaluate("A1"));
+    }
+
+    @Test
+    void referencesThroughSeveralSheetsArePropagated() {
+        final GoogleSheet first = workbook.addSheet("First");
+        final GoogleSheet second = workbook.addSheet("Second");
+        final GoogleSheet third = workbook.addSheet("Third");
+        first.putValue("A1", "=Second!A1");
+        second.putValue("A1", "=Third!A1+Third!A2");
+        third.putValue("A1", "1");
+        third.putValue("A2", "2");
+
+        assertEquals(3L, first.evaluate("A1"));
+    }
+
+    @Test
+    void referenceToMissingSheetCannotBePut() {
+        final GoogleSheet first = workbook.addSheet("First");
+        assertFalse(first.putValue("A1", "=Missing!A1"));
+        assertFalse(first.putValue("Other!A1", "1"));
+    }
+
+    @Test
+    void referenceQualifiedWithOwnSheetIsLocal() {
+        final GoogleSheet first = workbook.addSheet("First");
+        first.putValue("A1", "=First!B1");
+        first.putValue("B1", "7");
+        assertEquals(7L, first.evaluate("A1"));
+    }
+
+    @Test
+    void sheetsReferToEachOtherUnlessCellsMakeCycle() {
+        final GoogleSheet first = workbook.addSheet("First");
+        final GoogleSheet second = workbook.addSheet("Second");
+        assertTrue(first.putValue("A1", "=Second!A1"));
+        assertTrue(second.putValue("B1", "=First!B1"));
+        assertFalse(second.putValue("A1", "=First!A1"));
+        assertFalse(second.putValue("A1", "=B1+First!A1"));
+
+        first.putValue("B1", "5");
+        second.putValue("A1", "=B1+B1");
+        assertEquals(10L, first.evaluate("A1"));
+        assertEquals(5L, second.evaluate("B1"));
+    }
+
+    @Test
+    void cycleClosedByLocalPutCannotBePut() {
+        final GoogleSheet first = workbook.addSheet("First");
+        final GoogleSheet second = workbook.addSheet("Second");
+        final GoogleSheet third = workbook.addSheet("Third");
+        assertTrue(first.putValue("A1", "=Second!A1"));
+        assertTrue(second.putValue("A1", "=Third!A1"));
+        assertTrue(third.putValue("A1", "=B1"));
+        assertTrue(third.putValue("B1", "=First!B1"));
+        assertFalse(first.putValue("B1", "=A1"));
+        assertTrue(first.putValue("B1", "3"));
+
+        assertEquals(3L, first.evaluate("A1"));
+        assertTrue(first.putValue("C1", "=B1+A1"));
+        assertEquals(6L, first.evaluate("C1"));
+    }
+
+    @Test
+    void cycleThroughRangeCannotBePut() {
+        final GoogleSheet first = workbook.addSheet("First");
+        final GoogleSheet second = workbook.addSheet("Second");
+        assertTrue(first.putValue("A5", "=SUM(A1:A3)"));
+        assertTrue(second.putValue("A1", "=First!A5"));
+        assertFalse(first.putValue("A2", "=Second!A1"));
+        assertTrue(first.putValue("B2", "=Second!A1"));
+
+        first.putValue("A1", "4");
+        assertEquals(4L, first.evaluate("B2"));
+    }
+
+    @Test
+    void cycleWithinSheetReferringToOthersEvaluatesToNull() {
+        final GoogleSheet first = workbook.addSheet("First");
+        final GoogleSheet second = workbook.addSheet("Second");
+        second.putValue("A1", "=First!C1");
+        assertTrue(first.putValue("A1", "=B1+Second!A1"));
+        assertTrue(first.putValue("B1", "=A1"));
+
+        assertNull(first.evaluate("A1"));
+        assertEquals(0L, second.evaluate("A1"));
+    }
+
+    @Test
+    void referenceDroppedAndPutAgainFollowsChanges() {
+        final GoogleSheet first = workbook.addSheet("First");
+        final GoogleSheet second = workbook.addSheet("Second");
+        second.putValue("A1", "1");
+        first.putValue("A1", "=Second!A1");
+        first.putValue("A1", "2");
+        second.putValue("A1", "3");
+        assertEquals(2L, first.evaluate("A1"));
+
+        first.putValue("B1", "=Second!A1+A1");
+        second.putValue("A1", "4");
+        assertEquals(6L, first.evaluate("B1"));
+        assertTrue(second.putValue("B1", "=First!A1"));
+        assertEquals(2L, second.evaluate("B1"));
+        assertFalse(second.putValue("A1", "=First!B1"));
+
+        first.putValue("B1", "0");
+        assertTrue(second.putValue("A1", "=First!B1"));
+        assertEquals(0L, second.evaluate("A1"));
+    }
+
+    @Test
+    void cycleWithinReferredSheetEvaluatesToNull() {
+        final GoogleSheet first = workbook.addSheet("First");
+        final GoogleSheet second = workbook.addSheet("Second");
+        first.putValue("A1", "=Second!A1");
+        second.putValue("A1", "=A2");
+        second.putValue("A2", "=A1");
+        assertNull(first.evaluate("A1"));
+
+        second.putValue("A2", "5");
+        assertEquals(5L, first.evaluate("A1"));
+    }
+
+    @Test
+    void subscriberNotifiedOfChangeInReferredSheet() {
+        final GoogleSheet first = workbook.addSheet("First");
+        final GoogleSheet second = workbook.addSheet("Second");
+        final List<Long> notified = new ArrayList<>();
+        first.putValue("A1", "=Second!A1");
+        first.subscribe("A1", notified::add);
+
+        second.putValue("A1", "3");
+        second.putValue("A1", "4");
+
+        assertEquals(List.of(3L, 4L), notified);
+    }
+
+    @Test
+    void sheetsPutConcurrentlyWhileReferringToEachOther() throws Exception {
+        final GoogleSheet first = workbook.addSheet("First");
+        final GoogleSheet second = workbook.addSheet("Second");
+        final int puts = 2_000;
+        final Thread other = new Thread(() -> {
+            for (int i = 1; i <= puts; i++) {
+                second.putValue("A1", "=First!B1");
+                second.putValue("A1", String.valueOf(i));
+            }
+        });
+        other.start();
+        for (int i = 1; i <= puts; i++) {
+            first.putValue("A1", "=Second!A1");
+            first.putValue("B1", String.valueOf(i));
+        }
+        other.join();
+
+        assertEquals((long) puts, first.evaluate("A1"));
+        assertEquals((long) puts, second.evaluate("A1"));
+    }
+
+    @Test
+    void valuesOfManySheetsPutInParallel() {
+        final int sheetsCount = 16;
+        final int cellsCount = 1_000;
+        final Map<String, Map<String, String>> valuesBySheet = new HashMap<>();
+        workbook.addSheet("Total");
+        final StringBuilder total = new StringBuilder();
+        for (int sheet = 0; sheet < sheetsCount; sheet++) {
+            workbook.addSheet("S" + sheet);
+            final Map<String, String> values = new HashMap<>();
+            values.put("A1", "1");
+            for (int row = 2; row <= cellsCount; row++) {
+                values.put("A" + row, "=A" + (row - 1) + "+A1");
+            }
+            valuesBySheet.put("S" + sheet, values);
+            workbook.getSheet("Total").putValue("T" + sheet, sheet == 0
+                    ? "=S0!A" + cellsCount
+                    : "=T" + (sheet - 1) + "+S" + sheet + "!A" + cellsCount);
+        }
+
+        assertTrue(workbook.putValues(valuesBySheet));
+
+        assertEquals((long) sheetsCount * cellsCount, workbook.getSheet("Total").evaluate("T" + (sheetsCount - 1)));
+        assertFalse(workbook.putValues(Map.of("Missing", Map.of("A1", "1"))));
+    }
+
+    @Test
+    void shardsCountMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new WorkbookImpl(0));
+    }
+
+    @Test
+    void shardsDoNotKeepJvmAlive() {
+        final GoogleSheet first = workbook.addSheet("First");
+        final List<Boolean> daemons = new ArrayList<>();
+        first.subscribe("A1", value -> daemons.add(Thread.currentThread().isDaemon()));
+
+        assertTrue(workbook.putValues(Map.of("First", Map.of("A1", "1"))));
+        assertEquals(List.of(true), daemons);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import org.junit.jupiter.api.Test;
+import ru.kmoiseev.archive.googlesheet.GoogleSheet;
+import ru.kmoiseev.archive.googlesheet.GoogleSheetTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+public class BoundedCacheGoogleSheetTest extends GoogleSheetTest {
+    private static final int MAXIMUM_CACHED_VALUES = 16;
+
+    @Override
+    protected GoogleSheet createGoogleSheet() {
+        return newSheet();
+    }
+
+    private static GoogleSheetImpl newSheet() {
+        return new GoogleSheetImpl(GoogleSheetSettings.builder()
+                .maximumCachedValues(MAXIMUM_CACHED_VALUES)
+                .build());
+    }
+
+    @Test
+    void cachedValuesStayWithinBound() {
+        final GoogleSheetImpl sheet = newSheet();
+        final int cellsCount = 10_000;
+        sheet.putValue("C0", "1");
+        for (int i = 1; i < cellsCount; i++) {
+            sheet.putValue("C" + i, "=C" + (i - 1) + "+C0");
+        }
+
+        for (int i = 0; i < cellsCount; i++) {
+            sheet.evaluate("C" + i);
+        }
+        assertEquals(63L, sheet.evaluate("C62"));
+
+        final CacheStats stats = sheet.getCacheStats();
+        assertTrue(stats.getSize() <= MAXIMUM_CACHED_VALUES);
+        assertTrue(stats.getEvictions() >= cellsCount - MAXIMUM_CACHED_VALUES);
+    }
+
+    @Test
+    void evictedValuesEvaluatedAgainAfterChange() {
+        final GoogleSheetImpl sheet = newSheet();
+        sheet.putValue("TOP", "=A0");
+        for (int i = 0; i < 1_000; i++) {
+            sheet.putValue("A" + i, "=A" + (i + 1));
+        }
+        sheet.putValue("A1000", "7");
+        assertEquals(7L, sheet.evaluate("TOP"));
+
+        sheet.putValue("A1000", "8");
+        assertEquals(8L, sheet.evaluate("TOP"));
+        assertEquals(8L, sheet.evaluate("A500"));
+
+        sheet.putValue("A1000", "=TOP");
+        assertNull(sheet.evaluate("TOP"));
+        assertNull(sheet.evaluate("A500"));
+    }
+
+    @Test
+    void frequentlyReadValuesAreHits() {
+        final GoogleSheetImpl sheet = newSheet();
+        sheet.putValue("HOT", "=A1+A2");
+        for (int i = 0; i < 1_000; i++) {
+            sheet.putValue("COLD" + i, String.valueOf(i));
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            sheet.evaluate("HOT");
+            sheet.evaluate("COLD" + i);
+        }
+
+        final CacheStats stats = sheet.getCacheStats();
+        assertTrue(stats.getHits() >= 999);
+        assertTrue(stats.getMisses() >= 1_000);
+    }
+}
@@ -0,0 +1,116 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import org.junit.jupiter.api.Test;
+import ru.kmoiseev.archive.googlesheet.GoogleSheet;
+import ru.kmoiseev.archive.googlesheet.GoogleSheetTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+public class ConcurrentGoogleSheetTest extends GoogleSheetTest {
+
+    @Override
+    protected GoogleSheet createGoogleSheet() {
+        return new ConcurrentGoogleSheet();
+    }
+
+    @Test
+    void readersSeeConsistentSnapshotsWhileWriterUpdates() {
+        final ConcurrentGoogleSheet sheet = new ConcurrentGoogleSheet();
+        sheet.putValue("SUM", "=X+Y");
+        sheet.putValue("CHECK", "=SUM");
+
+        final int readersCount = 8;
+        final int updatesCount = 20_000;
+        final ExecutorService executorService = Executors.newFixedThreadPool(readersCount + 1);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+
+        final CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int i = 1; i <= updatesCount; i++) {
+                assertTrue(sheet.putValues(Map.of("X", String.valueOf(i), "Y", String.valueOf(-i))));
+            }
+            writing.set(false);
+        }, executorService);
+
+        final List<CompletableFuture<Long>> readers = new ArrayList<>();
+        for (int r = 0; r < readersCount; r++) {
+            readers.add(CompletableFuture.supplyAsync(() -> {
+                long reads = 0;
+                long lastVersion = 0;
+                while (writing.get()) {
+                    final SheetSnapshot snapshot = sheet.snapshot();
+                    assertTrue(snapshot.getVersion() >= lastVersion);
+                    lastVersion = snapshot.getVersion();
+
+                    assertEquals(0L, snapshot.evaluate("CHECK"));
+                    assertEquals(0L, snapshot.evaluate("X") + snapshot.evaluate("Y"));
+                    reads++;
+                }
+                return reads;
+            }, executorService));
+        }
+
+        writer.join();
+        readers.forEach(CompletableFuture::join);
+        executorService.shutdown();
+
+        assertEquals((long) updatesCount, sheet.evaluate("X"));
+        assertEquals(0L, sheet.evaluate("CHECK"));
+    }
+
+    @Test
+    void concurrentWritersDoNotLoseUpdates() {
+        final ConcurrentGoogleSheet sheet = new ConcurrentGoogleSheet();
+        final int writersCount = 8;
+        final int cellsPerWriter = 2_000;
+        final ExecutorService executorService = Executors.newFixedThreadPool(writersCount);
+
+        final List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int w = 0; w < writersCount; w++) {
+            final int writer = w;
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < cellsPerWriter; i++) {
+                    sheet.putValue("W" + writer + "C" + i, i == 0 ? "1" : "=W" + writer + "C" + (i - 1) + "+ONE");
+                }
+            }, executorService));
+        }
+        sheet.putValue("ONE", "1");
+        writers.forEach(CompletableFuture::join);
+        executorService.shutdown();
+
+        for (int w = 0; w < writersCount; w++) {
+            assertEquals((long) cellsPerWriter, sheet.evaluate("W" + w + "C" + (cellsPerWriter - 1)));
+        }
+    }
+
+    @Test
+    void clearedCellEvaluatesToZeroInDependents() {
+        final ConcurrentGoogleSheet sheet = new ConcurrentGoogleSheet();
+        final List<Long> notified = new ArrayList<>();
+        sheet.putValue("A1", "5");
+        sheet.putValue("A2", "=A1");
+        sheet.putValue("B1", "=COUNT(A1:A1)");
+        sheet.subscribe("A2", notified::add);
+
+        assertTrue(sheet.clearValue("A1"));
+        assertFalse(sheet.clearValue("C1"));
+
+        assertEquals(0L, sheet.evaluate("A1"));
+        assertEquals(0L, sheet.evaluate("A2"));
+        assertEquals(0L, sheet.evaluate("B1"));
+        assertEquals(List.of(0L), notified);
+    }
+}
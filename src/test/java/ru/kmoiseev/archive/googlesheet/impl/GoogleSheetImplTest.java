@@ -0,0 +1,353 @@
+package ru.kmoiseev.archive.googlesheet.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.kmoiseev.archive.googlesheet.GoogleSheet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * What only {@link GoogleSheetImpl} does, each test on a sheet of its own, so it runs once rather than
+ * for every implementation in {@link ru.kmoiseev.archive.googlesheet.GoogleSheetTest}.
+ */
+public class GoogleSheetImplTest {
+
+    // --- FULL RECALCULATION ---
+
+    @Test
+    void wideSheetRecalculatedInParallelCorrectly() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final GoogleSheetImpl sheet = new GoogleSheetImpl(GoogleSheetSettings.builder()
+                .recalculationPool(pool)
+                .build());
+        final int width = 100_000;
+        for (int i = 0; i < width; i++) {
+            sheet.putValue("A" + i, String.valueOf(i));
+            sheet.putValue("B" + i, "=A" + i + "+A" + (i + 1));
+            sheet.putValue("C" + i, "=B" + i + "+B" + i);
+        }
+
+        sheet.recalculateAll();
+        pool.shutdown();
+
+        for (int i = 0; i < width - 1; i++) {
+            assertEquals(2L * (2 * i + 1), sheet.evaluate("C" + i));
+        }
+        assertEquals(2L * (width - 1), sheet.evaluate("C" + (width - 1)));
+    }
+
+    @Test
+    void cyclesStayNotEvaluatedAfterRecalculation() {
+        final GoogleSheetImpl sheet = new GoogleSheetImpl();
+        sheet.putValue("A1", "=B1+C1");
+        sheet.putValue("B1", "=A1");
+        sheet.putValue("C1", "1");
+        sheet.putValue("D1", "=B1");
+        sheet.putValue("E1", "=C1+F1");
+
+        sheet.recalculateAll();
+
+        assertNull(sheet.evaluate("A1"));
+        assertNull(sheet.evaluate("D1"));
+        assertEquals(1L, sheet.evaluate("E1"));
+
+        sheet.putValue("B1", "5");
+
+        assertEquals(6L, sheet.evaluate("A1"));
+        assertEquals(5L, sheet.evaluate("D1"));
+    }
+
+    @Test
+    void rangeAggregatesEvalCorrectlyAfterRecalculation() {
+        final GoogleSheetImpl sheet = new GoogleSheetImpl();
+        for (int row = 1; row <= 10_000; row++) {
+            sheet.putValue("A" + row, String.valueOf(row));
+            sheet.putValue("B" + row, "=A" + row + "+A" + row);
+        }
+        sheet.putValue("C1", "=SUM(A1:B10000)");
+        sheet.putValue("C2", "=C1+A1");
+
+        sheet.recalculateAll();
+
+        assertEquals(3L * 10_000 * 10_001 / 2 + 1, sheet.evaluate("C2"));
+    }
+
+    @Test
+    void recalculatedSumOverflowingLongEvaluatesToNull() {
+        final GoogleSheetImpl sheet = new GoogleSheetImpl();
+        sheet.putValue("A1", String.valueOf(Long.MIN_VALUE));
+        sheet.putValue("A2", "=A1+A1");
+        sheet.putValue("A3", "=A2");
+        sheet.recalculateAll();
+        assertNull(sheet.evaluate("A3"));
+    }
+
+    // --- PERSISTENCE ---
+
+    @Test
+    void persistedSheetReopenedWithAllCells(@TempDir Path directory) {
+        final GoogleSheet persisted = persisted(directory);
+        persisted.putValue("A1", "=B1+C1");
+        persisted.putValue("B1", "-7");
+        persisted.putValue("C1", "=SUM(D1:D3)");
+        persisted.putValue("D2", "20");
+        persisted.putValue("D3", "=LONGNAME");
+        persisted.putValue("LONGNAME", "30");
+        persisted.putValue("CYCLE", "=CYCLE");
+        persisted.putValue("B1", "-5");
+        persisted.shutdown();
+
+        final GoogleSheet reopened = persisted(directory);
+
+        assertEquals(45L, reopened.evaluate("A1"));
+        assertNull(reopened.evaluate("CYCLE"));
+
+        reopened.putValue("D1", "100");
+        assertEquals(145L, reopened.evaluate("A1"));
+        reopened.shutdown();
+
+        final GoogleSheet reopenedAgain = persisted(directory);
+        assertEquals(145L, reopenedAgain.evaluate("A1"));
+        reopenedAgain.shutdown();
+    }
+
+    @Test
+    void persistedSheetReopenedAfterTornLogRecord(@TempDir Path directory) throws IOException {
+        final GoogleSheet persisted = persisted(directory);
+        persisted.putValue("A1", "=SUM(B1:B2)");
+        persisted.putValue("B1", "3");
+        persisted.shutdown();
+        Files.write(directory.resolve("changes.log"), new byte[]{'R', 0, 0}, StandardOpenOption.APPEND);
+
+        final GoogleSheet reopened = persisted(directory);
+        assertEquals(3L, reopened.evaluate("A1"));
+        assertTrue(reopened.putValue("C1", "=A1+A1"));
+        reopened.shutdown();
+
+        final GoogleSheet reopenedAgain = persisted(directory);
+        assertEquals(6L, reopenedAgain.evaluate("C1"));
+        reopenedAgain.shutdown();
+    }
+
+    @Test
+    void persistedSheetWithManyAddressesReopened(@TempDir Path directory) {
+        final int rows = 5_000;
+        final GoogleSheet persisted = persisted(directory);
+        persisted.putValue("ИТОГ", "7");
+        persisted.putValue("TOTAL", "1");
+        persisted.putValue("A1", "=TOTAL");
+        for (int row = 2; row <= rows; row++) {
+            persisted.putValue("A" + row, "=A" + (row - 1) + "+B" + row);
+            persisted.putValue("B" + row, "1");
+        }
+        persisted.shutdown();
+
+        final GoogleSheetImpl reopened = persisted(directory);
+        assertEquals((long) rows, reopened.evaluate("A" + rows));
+        assertEquals(0L, reopened.evaluate("B" + (rows + 1)));
+        assertEquals(7L, reopened.evaluate("ИТОГ"));
+        reopened.putValue("TOTAL", "10");
+        assertEquals(rows + 9L, reopened.evaluate("A" + rows));
+        assertEquals(2, reopened.getColumnsCount());
+        assertEquals(rows, reopened.getRowsCount());
+        reopened.shutdown();
+    }
+
+    @Test
+    void persistedSheetRelinkedAfterCrash(@TempDir Path directory) {
+        final GoogleSheetImpl crashed = persisted(directory);
+        crashed.putValue("A1", "=B1+C1");
+        crashed.putValue("B1", "2");
+        crashed.putValue("C1", "=SUM(D1:D2)");
+        crashed.putValue("D1", "5");
+        crashed.flush();
+
+        final GoogleSheet reopened = persisted(directory);
+        assertEquals(7L, reopened.evaluate("A1"));
+        reopened.putValue("B1", "10");
+        reopened.putValue("D2", "1");
+        assertEquals(16L, reopened.evaluate("A1"));
+        reopened.shutdown();
+
+        final GoogleSheet reopenedAgain = persisted(directory);
+        assertEquals(16L, reopenedAgain.evaluate("A1"));
+        reopenedAgain.putValue("D1", "0");
+        assertEquals(11L, reopenedAgain.evaluate("A1"));
+        reopenedAgain.shutdown();
+    }
+
+    @Test
+    void persistedChangeLogCompactedOnOpen(@TempDir Path directory) throws IOException {
+        final GoogleSheet persisted = persisted(directory);
+        persisted.putValue("A1", "1");
+        for (int i = 1; i <= 100; i++) {
+            persisted.putValue("B1", "=SUM(A1:A" + i + ")");
+        }
+        persisted.putValue("C1", "=MAX(A1:A2)");
+        persisted.putValue("C1", "3");
+        persisted.shutdown();
+
+        final GoogleSheet reopened = persisted(directory);
+        final long rangeRecordSize = 1 + 4 + 1 + 4 * 4;
+        assertEquals(rangeRecordSize, Files.size(directory.resolve("changes.log")));
+        assertEquals(1L, reopened.evaluate("B1"));
+        assertEquals(3L, reopened.evaluate("C1"));
+        reopened.putValue("A2", "4");
+        assertEquals(5L, reopened.evaluate("B1"));
+        reopened.shutdown();
+    }
+
+    @Test
+    void smallPersistedSheetMapsSmallFiles(@TempDir Path directory) throws IOException {
+        final GoogleSheet persisted = persisted(directory);
+        for (int row = 1; row <= 100; row++) {
+            persisted.putValue("A" + row, "=B" + row);
+        }
+        persisted.shutdown();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                assertTrue(Files.size(file) <= 1 << 14, file + " is " + Files.size(file) + " bytes");
+            }
+        }
+    }
+
+    // --- CSV EXPORT ---
+
+    @Test
+    void evaluatedValuesExportedAsCsv() {
+        final GoogleSheetImpl sheet = new GoogleSheetImpl();
+        sheet.putValue("A1", "5");
+        sheet.putValue("B1", "=A1+C2");
+        sheet.putValue("C2", "-15");
+        sheet.putValue("A2", "=A2");
+        sheet.putValue("total", "7");
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CsvExporter().exportFrom(sheet, Channels.newChannel(out));
+
+        assertEquals("5,-10,\n,,-15\n", out.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void sparseCellsExportedInPositionOrder() {
+        final GoogleSheetImpl sheet = new GoogleSheetImpl();
+        sheet.putValue("C3", "3");
+        sheet.putValue("A3", "=C3+C3");
+        sheet.putValue("B1", "1");
+        sheet.putValue("A1", "7");
+        sheet.clearValue("B1");
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CsvExporter().exportFrom(sheet, Channels.newChannel(out));
+
+        assertEquals("7,,\n,,\n6,,3\n", out.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void exportedCsvImportedBack() {
+        final GoogleSheetImpl sheet = new GoogleSheetImpl();
+        for (int row = 1; row <= 5000; row++) {
+            sheet.putValue("A" + row, String.valueOf(Long.MIN_VALUE + row));
+            sheet.putValue("B" + row, "=A" + row);
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CsvExporter().exportFrom(sheet, Channels.newChannel(out));
+
+        final GoogleSheetImpl imported = new GoogleSheetImpl();
+        assertTrue(new CsvImporter().importInto(imported, csvChannel(out.toString(StandardCharsets.US_ASCII))));
+
+        assertEquals(Long.MIN_VALUE + 4321, imported.evaluate("B4321"));
+    }
+
+    // --- NUMERIC MODE ---
+
+    @Test
+    void bigDecimalModeEvaluatesOverflowedValuesExactly() {
+        final GoogleSheetImpl sheet = new GoogleSheetImpl(GoogleSheetSettings.builder()
+                .numericMode(NumericMode.BIG_DECIMAL)
+                .build());
+        final BigDecimal max = BigDecimal.valueOf(Long.MAX_VALUE);
+        sheet.putValue("A1", String.valueOf(Long.MAX_VALUE));
+        sheet.putValue("A2", "=A1+A1");
+        sheet.putValue("A3", "=A2+A2");
+        sheet.putValue("B1", "=A3");
+        sheet.putValue("TOTAL", "=SUM(A1:A3)");
+        sheet.putValue("HIGHEST", "=MAX(A1:A3)");
+
+        assertNull(sheet.evaluate("B1"));
+        assertEquals(max.multiply(BigDecimal.valueOf(4)), sheet.evaluateExact("B1"));
+        assertEquals(max.multiply(BigDecimal.valueOf(7)), sheet.evaluateExact("TOTAL"));
+        assertEquals(max.multiply(BigDecimal.valueOf(4)), sheet.evaluateExact("HIGHEST"));
+        assertEquals(BigDecimal.ZERO, sheet.evaluateExact("ABSENT"));
+
+        sheet.putValue("A1", "1");
+        assertEquals(BigDecimal.valueOf(4), sheet.evaluateExact("B1"));
+        assertEquals(4L, sheet.evaluate("B1"));
+    }
+
+    @Test
+    void longModeDoesNotEvaluateOverflowedValuesExactly() {
+        final GoogleSheetImpl sheet = new GoogleSheetImpl();
+        sheet.putValue("A1", String.valueOf(Long.MAX_VALUE));
+        sheet.putValue("A2", "=A1+A1");
+        assertNull(sheet.evaluateExact("A2"));
+        assertEquals(BigDecimal.valueOf(Long.MAX_VALUE), sheet.evaluateExact("A1"));
+    }
+
+    @Test
+    void settingsCombineBoundedCacheWithBigDecimalMode() {
+        final GoogleSheetImpl sheet = new GoogleSheetImpl(GoogleSheetSettings.builder()
+                .maximumCachedValues(1)
+                .numericMode(NumericMode.BIG_DECIMAL)
+                .build());
+        sheet.putValue("A1", String.valueOf(Long.MAX_VALUE));
+        sheet.putValue("A2", "=A1+A1");
+        sheet.putValue("A3", "=A1+A2");
+
+        assertEquals(BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal.valueOf(3)), sheet.evaluateExact("A3"));
+        assertTrue(sheet.getCacheStats().getSize() <= 1);
+    }
+
+    @Test
+    void maximumCachedValuesMustBePositiveOrUnbounded() {
+        for (int maximumCachedValues : new int[]{0, -2, Integer.MIN_VALUE}) {
+            assertThrows(IllegalArgumentException.class, () -> new GoogleSheetImpl(GoogleSheetSettings.builder()
+                    .maximumCachedValues(maximumCachedValues)
+                    .build()));
+        }
+        assertEquals(0L, new GoogleSheetImpl(GoogleSheetSettings.builder()
+                .maximumCachedValues(ValuesCache.UNBOUNDED)
+                .build()).evaluate("A1"));
+    }
+
+    private static GoogleSheetImpl persisted(Path directory) {
+        return new GoogleSheetImpl(GoogleSheetSettings.builder()
+                .persistenceDirectory(directory)
+                .build());
+    }
+
+    private static ReadableByteChannel csvChannel(String csv) {
+        return Channels.newChannel(new ByteArrayInputStream(csv.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -6,6 +6,7 @@ import ru.kmoiseev.archive.shortener.impl.UrlShortenerImpl;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -14,17 +15,24 @@ import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toUnmodifiableList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author konstantinmoiseev
  * @since 24.01.2022
  */
 public class UrlShortenerTest {
-    private UrlShortener urlShortener;
+    protected UrlShortener urlShortener;
+
+    protected UrlShortener createUrlShortener() {
+        return new UrlShortenerImpl();
+    }
 
     @BeforeEach
     void beforeEach() {
-        urlShortener = new UrlShortenerImpl();
+        urlShortener = createUrlShortener();
     }
 
     @Test
@@ -76,6 +84,45 @@ public class UrlShortenerTest {
                 "Expecting 1000 distinct url shortens");
     }
 
+    @Test
+    void invalidShortUrlsAreNotResolved() {
+        assertNull(urlShortener.resolveShortenedUrl("https://mois-shortener.ru/!"));
+        assertNull(urlShortener.resolveShortenedUrl("https://mois-shortener.ru/999"));
+    }
+
+    @Test
+    void prefixIsStrippedOnlyFromStart() {
+        final String shortUrl = urlShortener.shortenUrl("https://i.am.full.url");
+        final String code = shortUrl.substring("https://mois-shortener.ru/".length());
+
+        assertEquals("https://i.am.full.url", urlShortener.resolveShortenedUrl(code));
+        assertNull(urlShortener.resolveShortenedUrl("https://mois-shortener.ru/" + shortUrl));
+        assertNull(urlShortener.resolveShortenedUrl(code + "https://mois-shortener.ru/"));
+        assertNull(urlShortener.resolveShortenedUrl(" "));
+        assertNull(urlShortener.resolveShortenedUrl(null));
+    }
+
+    @Test
+    void urlsAreShortenedAndResolvedInBulk() {
+        final List<String> fullUrls = IntStream.range(0, 1_000)
+                .mapToObj(i -> i % 100 == 0 ? " " : "https://i.am.full.url/" + i)
+                .collect(Collectors.toList());
+
+        final List<String> shortUrls = urlShortener.shortenAll(fullUrls);
+        final List<String> resolved = urlShortener.resolveAll(shortUrls);
+
+        assertEquals(fullUrls.size(), shortUrls.size());
+        assertEquals(990, shortUrls.stream().filter(Objects::nonNull).distinct().count());
+        for (int i = 0; i < fullUrls.size(); i++) {
+            assertEquals(i % 100 == 0 ? null : fullUrls.get(i), resolved.get(i));
+            assertEquals(resolved.get(i), urlShortener.resolveShortenedUrl(shortUrls.get(i)));
+        }
+        assertNotEquals(shortUrls.get(1), urlShortener.shortenUrl(fullUrls.get(1)));
+        assertEquals(List.of(), urlShortener.shortenAll(List.of()));
+        assertNull(urlShortener.shortenAll(null));
+        assertNull(urlShortener.resolveAll(null));
+    }
+
     public static class FullAndShortedUrls {
         private final String fullUrl;
         private final String shortenedUrl;
@@ -104,4 +151,25 @@ public class UrlShortenerTest {
         .forEach(fullAndShortedUrls ->
                 assertEquals(fullAndShortedUrls.fullUrl, urlShortener.resolveShortenedUrl(fullAndShortedUrls.shortenedUrl)));
     }
+
+    @Test
+    void concurrentShortensAndResolvesWorkCorrect() {
+        final int threadsCount = 16;
+        final int urlsPerThread = 20_000;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadsCount);
+        final List<CompletableFuture<Boolean>> workers = IntStream.range(0, threadsCount)
+                .mapToObj(thread -> CompletableFuture.supplyAsync(() -> {
+                    boolean allResolved = true;
+                    for (int i = 0; i < urlsPerThread; i++) {
+                        final String fullUrl = "https://i.am.full.url/" + thread + "/" + i;
+                        final String shortUrl = urlShortener.shortenUrl(fullUrl);
+                        allResolved &= fullUrl.equals(urlShortener.resolveShortenedUrl(shortUrl));
+                    }
+                    return allResolved;
+                }, executorService))
+                .collect(toUnmodifiableList());
+
+        workers.forEach(worker -> assertTrue(worker.join()));
+        executorService.shutdown();
+    }
 }
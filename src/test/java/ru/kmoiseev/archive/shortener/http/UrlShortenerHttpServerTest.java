@@ -0,0 +1,157 @@
+package ru.kmoiseev.archive.shortener.http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kmoiseev.archive.shortener.impl.UrlShortenerImpl;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+public class UrlShortenerHttpServerTest {
+    private UrlShortenerImpl urlShortener;
+    private UrlShortenerHttpServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void beforeEach() {
+        urlShortener = new UrlShortenerImpl();
+        server = new UrlShortenerHttpServer(urlShortener,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), false, 4);
+        server.start();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @AfterEach
+    void afterEach() {
+        server.stop();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+
+    private String code(String shortUrl) {
+        return shortUrl.substring(shortUrl.lastIndexOf('/'));
+    }
+
+    @Test
+    void postedUrlIsShortenedAndRedirected() throws Exception {
+        final HttpResponse<String> posted = client.send(HttpRequest.newBuilder(uri("/"))
+                .POST(HttpRequest.BodyPublishers.ofString("https://i.am.full.url"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, posted.statusCode());
+        assertEquals("https://i.am.full.url", urlShortener.resolveShortenedUrl(posted.body()));
+
+        final HttpResponse<Void> redirected = client.send(HttpRequest.newBuilder(uri(code(posted.body()))).build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertEquals(302, redirected.statusCode());
+        assertEquals("https://i.am.full.url", redirected.headers().firstValue("Location").orElseThrow());
+    }
+
+    @Test
+    void badRequestsAreRejected() throws Exception {
+        assertEquals(404, client.send(HttpRequest.newBuilder(uri("/zzzz")).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode());
+        assertEquals(404, client.send(HttpRequest.newBuilder(uri("/")).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode());
+        assertEquals(400, client.send(HttpRequest.newBuilder(uri("/"))
+                .POST(HttpRequest.BodyPublishers.ofString(" ")).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode());
+        assertEquals(413, client.send(HttpRequest.newBuilder(uri("/"))
+                .POST(HttpRequest.BodyPublishers.ofString("x".repeat(10_000))).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode());
+        assertEquals(405, client.send(HttpRequest.newBuilder(uri("/"))
+                .DELETE().build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    @Test
+    void threadsMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new UrlShortenerHttpServer(urlShortener,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), false, 0));
+    }
+
+    @Test
+    void pipelinedRequestsAreAnsweredInOrder() throws Exception {
+        final String first = code(urlShortener.shortenUrl("https://first.url"));
+        final String second = code(urlShortener.shortenUrl("https://second.url"));
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            final OutputStream out = socket.getOutputStream();
+            out.write(("GET " + first + " HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    + "GET " + second + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            final BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            final List<String> locations = new ArrayList<>();
+            while (locations.size() < 2) {
+                final String line = in.readLine();
+                assertNotNull(line, "Connection closed after " + locations.size() + " responses");
+                if (line.toLowerCase().startsWith("location:")) {
+                    locations.add(line.substring("location:".length()).strip());
+                }
+            }
+            assertEquals(Arrays.asList("https://first.url", "https://second.url"), locations);
+        }
+    }
+
+    @Test
+    void concurrentKeepAliveClientsAreRedirected() throws Exception {
+        final int urls = 1_000;
+        final List<String> codes = new ArrayList<>();
+        for (int i = 0; i < urls; i++) {
+            codes.add(code(urlShortener.shortenUrl("https://i.am.full.url/" + i)));
+        }
+
+        final int clients = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(clients);
+        final List<Future<Boolean>> results = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            final int clientIndex = c;
+            results.add(executor.submit(() -> {
+                boolean allRedirected = true;
+                for (int i = clientIndex; i < urls; i += clients) {
+                    final HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri(codes.get(i))).build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    allRedirected &= response.statusCode() == 302
+                            && response.headers().firstValue("Location").orElseThrow()
+                            .equals("https://i.am.full.url/" + i);
+                }
+                return allRedirected;
+            }));
+        }
+
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,126 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import org.junit.jupiter.api.Test;
+import ru.kmoiseev.archive.shortener.UrlShortener;
+import ru.kmoiseev.archive.shortener.UrlShortenerTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+public class HotLinkUrlShortenerTest extends UrlShortenerTest {
+
+    @Override
+    protected UrlShortener createUrlShortener() {
+        return new UrlShortenerImpl(UrlShortenerSettings.builder().hotLinks(64).build());
+    }
+
+    @Test
+    void repeatedResolvesAreHits() {
+        final UrlShortenerImpl shortener = (UrlShortenerImpl) urlShortener;
+        final String shortUrl = shortener.shortenUrl("https://i.am.full.url");
+        for (int i = 0; i < 10; i++) {
+            assertEquals("https://i.am.full.url", shortener.resolveShortenedUrl(shortUrl));
+        }
+
+        final HotLinkStats stats = shortener.getHotLinkStats();
+        assertEquals(9, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.9, stats.getHitRatio(), 1e-9);
+        assertNull(new UrlShortenerImpl().getHotLinkStats());
+    }
+
+    @Test
+    void hotLinksSurviveScanOfColdLinks() {
+        final CountingKeeper keeper = new CountingKeeper();
+        final HotLinkCache cache = new HotLinkCache(keeper, 100);
+        for (long id = 1; id <= 10_000; id++) {
+            cache.keep(id, "https://i.am.full.url/" + id);
+        }
+        for (int round = 0; round < 20; round++) {
+            for (long id = 1; id <= 50; id++) {
+                cache.retrieve(id);
+            }
+        }
+
+        for (long id = 51; id <= 10_000; id++) {
+            assertEquals("https://i.am.full.url/" + id, cache.retrieve(id));
+        }
+        keeper.retrieves.set(0);
+        for (long id = 1; id <= 50; id++) {
+            assertEquals("https://i.am.full.url/" + id, cache.retrieve(id));
+        }
+
+        assertTrue(keeper.retrieves.get() <= 5, "Hot links evicted: " + keeper.retrieves.get());
+        assertTrue(cache.getStats().getSize() <= 100);
+        assertTrue(cache.getStats().getEvictions() > 0);
+    }
+
+    @Test
+    void keptUrlReplacesCachedOne() {
+        final HotLinkCache cache = new HotLinkCache(new HeapShortUrlKeeper(), 16);
+        cache.keep(1, "https://first.url");
+        assertEquals("https://first.url", cache.retrieve(1));
+
+        cache.keep(1, "https://second.url");
+        assertEquals("https://second.url", cache.retrieve(1));
+        assertNull(cache.retrieve(2));
+        assertNull(cache.retrieve(-1));
+    }
+
+    @Test
+    void forgottenUrlIsDroppedFromCache() {
+        final HotLinkCache cache = new HotLinkCache(new HeapShortUrlKeeper(), 16);
+        cache.keep(1, "https://first.url");
+        assertEquals("https://first.url", cache.retrieve(1));
+
+        cache.forget(1);
+        assertNull(cache.retrieve(1));
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    void concurrentResolvesNeverSeeAnotherUrl() {
+        final HotLinkCache cache = new HotLinkCache(new HeapShortUrlKeeper(), 128);
+        for (long id = 1; id <= 1_000; id++) {
+            cache.keep(id, "https://i.am.full.url/" + id);
+        }
+
+        final List<CompletableFuture<Void>> readers = new ArrayList<>();
+        for (int reader = 0; reader < 8; reader++) {
+            readers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    // a skewed mix of hits, misses and evictions
+                    final long id = 1 + Math.min(ThreadLocalRandom.current().nextInt(1_000),
+                            ThreadLocalRandom.current().nextInt(1_000));
+                    assertEquals("https://i.am.full.url/" + id, cache.retrieve(id));
+                }
+            }));
+        }
+        readers.forEach(CompletableFuture::join);
+
+        final HotLinkStats stats = cache.getStats();
+        assertEquals(800_000, stats.getHits() + stats.getMisses());
+        assertTrue(stats.getSize() <= 128);
+    }
+
+    private static class CountingKeeper extends HeapShortUrlKeeper {
+        private final AtomicInteger retrieves = new AtomicInteger();
+
+        @Override
+        public String retrieve(long id) {
+            retrieves.incrementAndGet();
+            return super.retrieve(id);
+        }
+    }
+}
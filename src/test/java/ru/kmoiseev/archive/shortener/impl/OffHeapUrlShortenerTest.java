@@ -0,0 +1,53 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import org.junit.jupiter.api.Test;
+import ru.kmoiseev.archive.shortener.UrlShortener;
+import ru.kmoiseev.archive.shortener.UrlShortenerTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+public class OffHeapUrlShortenerTest extends UrlShortenerTest {
+
+    @Override
+    protected UrlShortener createUrlShortener() {
+        return new UrlShortenerImpl(UrlShortenerSettings.builder().offHeap(true).build());
+    }
+
+    @Test
+    void urlsAreKeptAcrossSlabs() {
+        final OffHeapShortUrlKeeper keeper = new OffHeapShortUrlKeeper(256);
+        final String longUrl = "https://i.am.full.url/" + "x".repeat(200);
+        for (long id = 1; id <= 100; id++) {
+            assertTrue(keeper.keep(id, longUrl + id));
+        }
+
+        for (long id = 1; id <= 100; id++) {
+            assertEquals(longUrl + id, keeper.retrieve(id));
+        }
+        assertTrue(keeper.getArenaBytes() > 256 * 99);
+    }
+
+    @Test
+    void nonAsciiUrlsAreKept() {
+        final OffHeapShortUrlKeeper keeper = new OffHeapShortUrlKeeper();
+        final String url = "https://\u043f\u0440\u0438\u043c\u0435\u0440.\u0440\u0444/?q=\uD83D\uDE00";
+        assertTrue(keeper.keep(7, url));
+        assertEquals(url, keeper.retrieve(7));
+        assertNull(keeper.retrieve(8));
+        assertNull(keeper.retrieve(1L << 40));
+    }
+
+    @Test
+    void urlsNotFittingSlabAreNotKept() {
+        final OffHeapShortUrlKeeper keeper = new OffHeapShortUrlKeeper(64);
+        assertFalse(keeper.keep(1, "https://i.am.full.url/" + "x".repeat(64)));
+        assertFalse(keeper.keep(-1, "https://i.am.full.url"));
+    }
+}
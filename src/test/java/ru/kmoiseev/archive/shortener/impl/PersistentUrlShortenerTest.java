@@ -0,0 +1,270 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.kmoiseev.archive.shortener.UrlShortener;
+import ru.kmoiseev.archive.shortener.UrlShortenerTest;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+public class PersistentUrlShortenerTest extends UrlShortenerTest {
+    @TempDir
+    Path directory;
+
+    @Override
+    protected UrlShortener createUrlShortener() {
+        return open(64 << 20);
+    }
+
+    @AfterEach
+    void afterEach() {
+        urlShortener.shutdown();
+    }
+
+    private UrlShortener open(long snapshotLogBytes) {
+        return open(snapshotLogBytes, 1);
+    }
+
+    private UrlShortener open(long snapshotLogBytes, long durabilityWindowMillis) {
+        return new UrlShortenerImpl(UrlShortenerSettings.builder()
+                .persistenceDirectory(directory)
+                .durabilityWindowMillis(durabilityWindowMillis)
+                .snapshotLogBytes(snapshotLogBytes)
+                .build());
+    }
+
+    @Test
+    void urlsAreRestoredAfterRestart() {
+        final List<String> shortUrls = shorten(urlShortener, 0, 1_000);
+        urlShortener.shutdown();
+
+        urlShortener = open(64 << 20);
+        assertResolved(urlShortener, shortUrls, 0);
+    }
+
+    @Test
+    void idsAreNotReusedAfterRestart() {
+        final Set<String> shortUrls = new HashSet<>(shorten(urlShortener, 0, 100));
+        urlShortener.shutdown();
+
+        urlShortener = open(64 << 20);
+        for (String shortUrl : shorten(urlShortener, 100, 100)) {
+            assertTrue(shortUrls.add(shortUrl), "Short url is reused " + shortUrl);
+        }
+    }
+
+    @Test
+    void idsHandedOutBeforeCrashAreNotReused() {
+        urlShortener.shutdown();
+        final UrlShortener crashed = open(64 << 20, 10_000);
+        final String lostShortUrl = crashed.shortenUrl("https://victim.example/1");
+
+        urlShortener = open(64 << 20);
+        final String shortUrl = urlShortener.shortenUrl("https://other.example/1");
+        final List<String> shortUrls = urlShortener.shortenAll(List.of("https://other.example/2"));
+
+        assertNotEquals(lostShortUrl, shortUrl);
+        assertNotEquals(lostShortUrl, shortUrls.get(0));
+        assertNull(urlShortener.resolveShortenedUrl(lostShortUrl));
+        crashed.shutdown();
+    }
+
+    @Test
+    void appendsFailOnceLogFails() {
+        final ShortUrlPersistence persistence =
+                ShortUrlPersistence.open(directory.resolve("failing"), 1, 1 << 20, (id, fullUrl) -> { });
+        persistence.close();
+
+        assertFalse(persistence.reserve(100));
+        assertNotNull(persistence.getFailure());
+        assertFalse(persistence.append(1, "https://i.am.full.url"));
+        assertFalse(persistence.appendAll(new long[]{1}, new String[]{"https://i.am.full.url"}, 1));
+    }
+
+    @Test
+    void failureOfGroupCommitIsSeenByNextCallers() throws InterruptedException {
+        final ShortUrlPersistence persistence =
+                ShortUrlPersistence.open(directory.resolve("failing"), 1, 1, (id, fullUrl) -> { });
+        persistence.start(retrieving(id -> {
+            throw new IllegalStateException("Keeper is broken");
+        }));
+        assertTrue(persistence.append(1, "https://i.am.full.url"));
+        while (persistence.getFailure() == null) {
+            Thread.sleep(1);
+        }
+
+        assertFalse(persistence.append(2, "https://i.am.full.url"));
+        assertThrows(IllegalStateException.class, persistence::close);
+    }
+
+    @Test
+    void snapshotReadsOnlyIdsAppended() {
+        final ShortUrlPersistence persistence =
+                ShortUrlPersistence.open(directory.resolve("bounded"), 1, 1 << 20, (id, fullUrl) -> { });
+        final List<Long> retrieved = new ArrayList<>();
+        persistence.append(1, "https://i.am.full.url/0");
+        assertTrue(persistence.reserve(1 << 20));
+        persistence.snapshot(retrieving(id -> {
+            retrieved.add(id);
+            return "https://i.am.full.url/0";
+        }));
+        persistence.close();
+
+        assertEquals(List.of(1L), retrieved);
+    }
+
+    @Test
+    void urlsAreForgottenWhenLogFails() throws InterruptedException {
+        final List<Long> forgotten = new ArrayList<>();
+        final HeapShortUrlKeeper keeper = new HeapShortUrlKeeper() {
+            @Override
+            public String retrieve(long id) {
+                if (Thread.currentThread().getName().equals("short-url-persistence")) {
+                    throw new IllegalStateException("Keeper is broken");
+                }
+                return super.retrieve(id);
+            }
+
+            @Override
+            public void forget(long id) {
+                forgotten.add(id);
+                super.forget(id);
+            }
+        };
+        urlShortener.shutdown();
+        urlShortener = new UrlShortenerImpl(UrlShortenerSettings.builder()
+                .persistenceDirectory(directory)
+                .durabilityWindowMillis(1)
+                .snapshotLogBytes(1)
+                .build(), keeper);
+
+        String shortUrl = urlShortener.shortenUrl("https://i.am.full.url/0");
+        assertNotNull(shortUrl);
+        while (shortUrl != null) {
+            Thread.sleep(1);
+            shortUrl = urlShortener.shortenUrl("https://i.am.full.url/1");
+        }
+
+        assertEquals(Arrays.asList(null, null),
+                urlShortener.shortenAll(List.of("https://i.am.full.url/2", "https://i.am.full.url/3")));
+        assertEquals(3, forgotten.size());
+        for (long id : forgotten) {
+            assertNull(keeper.retrieve(id));
+        }
+        assertThrows(IllegalStateException.class, urlShortener::shutdown);
+        urlShortener = new UrlShortenerImpl();
+    }
+
+    @Test
+    void bulkShortenedUrlsAreRestoredAfterRestart() {
+        final List<String> fullUrls = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            fullUrls.add("https://i.am.full.url/" + i);
+        }
+        final List<String> shortUrls = urlShortener.shortenAll(fullUrls);
+        urlShortener.shutdown();
+
+        urlShortener = open(64 << 20);
+        assertEquals(fullUrls, urlShortener.resolveAll(shortUrls));
+        assertTrue(new HashSet<>(shortUrls).add(urlShortener.shortenUrl("https://i.am.full.url/new")));
+    }
+
+    @Test
+    void logIsCompactedIntoSnapshot() throws IOException, InterruptedException {
+        urlShortener.shutdown();
+        urlShortener = open(1 << 10);
+        final List<String> shortUrls = shorten(urlShortener, 0, 2_000);
+        Thread.sleep(50);
+        final List<String> moreShortUrls = shorten(urlShortener, 2_000, 10);
+        urlShortener.shutdown();
+
+        assertTrue(fileNames().stream().anyMatch(name -> name.startsWith("snapshot-")));
+        assertTrue(fileNames().stream().filter(name -> name.startsWith("log-")).count() <= 2);
+
+        urlShortener = open(64 << 20);
+        assertResolved(urlShortener, shortUrls, 0);
+        assertResolved(urlShortener, moreShortUrls, 2_000);
+    }
+
+    @Test
+    void tornRecordAtLogEndIsSkipped() throws IOException {
+        final List<String> shortUrls = shorten(urlShortener, 0, 10);
+        urlShortener.shutdown();
+
+        final Path log = directory.resolve(fileNames().stream()
+                .filter(name -> name.startsWith("log-"))
+                .findFirst()
+                .orElseThrow());
+        final long size = Files.size(log);
+        try (SeekableByteChannel channel = Files.newByteChannel(log, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        urlShortener = open(64 << 20);
+        assertResolved(urlShortener, shortUrls.subList(0, 9), 0);
+        assertNull(urlShortener.resolveShortenedUrl(shortUrls.get(9)));
+    }
+
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> shorten(UrlShortener shortener, int from, int count) {
+        final List<String> shortUrls = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            shortUrls.add(shortener.shortenUrl("https://i.am.full.url/" + i));
+        }
+        return shortUrls;
+    }
+
+    private static void assertResolved(UrlShortener shortener, List<String> shortUrls, int from) {
+        for (int i = 0; i < shortUrls.size(); i++) {
+            assertEquals("https://i.am.full.url/" + (from + i), shortener.resolveShortenedUrl(shortUrls.get(i)));
+        }
+    }
+
+    private static ShortUrlKeeper retrieving(LongFunction<String> retrieve) {
+        return new ShortUrlKeeper() {
+            @Override
+            public boolean keep(long id, String fullUrl) {
+                return true;
+            }
+
+            @Override
+            public String retrieve(long id) {
+                return retrieve.apply(id);
+            }
+
+            @Override
+            public void forget(long id) {
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ */
+public class ShortUrlGeneratorTest {
+
+    @Test
+    void idsOfOneThreadAreConsecutiveWithinBlock() {
+        final ShortUrlGenerator generator = new ShortUrlGenerator(4);
+        final long[] ids = LongStream.generate(generator::generateNext).limit(10).toArray();
+        assertArrayEquals(LongStream.rangeClosed(1, 10).toArray(), ids);
+    }
+
+    @Test
+    void blockSizeMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new ShortUrlGenerator(0));
+        assertThrows(IllegalArgumentException.class, () -> new ShortUrlGenerator(-1));
+    }
+
+    @Test
+    void reservedIdsFollowTakenBlocks() {
+        final ShortUrlGenerator generator = new ShortUrlGenerator(4);
+        assertEquals(1L, generator.generateNext());
+        assertEquals(5L, generator.reserve(100));
+        assertEquals(2L, generator.generateNext());
+        assertEquals(105L, generator.getHighWaterMark());
+    }
+
+    @Test
+    void idsAreUniqueAcrossThreads() {
+        final ShortUrlGenerator generator = new ShortUrlGenerator(64);
+        final int threadsCount = 16;
+        final int idsPerThread = 100_000;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadsCount);
+        final List<CompletableFuture<long[]>> generated = new ArrayList<>();
+        for (int i = 0; i < threadsCount; i++) {
+            generated.add(CompletableFuture.supplyAsync(
+                    () -> LongStream.generate(generator::generateNext).limit(idsPerThread).toArray(), executorService));
+        }
+
+        final long[] ids = generated.stream()
+                .map(CompletableFuture::join)
+                .flatMapToLong(Arrays::stream)
+                .sorted()
+                .toArray();
+        executorService.shutdown();
+
+        assertEquals(threadsCount * idsPerThread, LongStream.of(ids).distinct().count());
+        assertEquals(1L, ids[0]);
+    }
+}
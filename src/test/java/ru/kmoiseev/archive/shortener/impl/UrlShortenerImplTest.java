@@ -0,0 +1,175 @@
+package ru.kmoiseev.archive.shortener.impl;
+
+import org.junit.jupiter.api.Test;
+import ru.kmoiseev.archive.shortener.UrlShortener;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author konstantinmoiseev
+ * @since 18.10.2026
+ *
+ * What only {@link UrlShortenerImpl} and its {@link ShortCodeCodec} do, each test on a shortener of its own,
+ * so it runs once rather than for every implementation in {@link ru.kmoiseev.archive.shortener.UrlShortenerTest}.
+ */
+public class UrlShortenerImplTest {
+
+    @Test
+    void shortCodesAreBase62() {
+        final ShortCodeCodec codec = new ShortCodeCodec();
+        assertEquals("1", codec.encode(1));
+        assertEquals("z", codec.encode(61));
+        assertEquals("10", codec.encode(62));
+        assertEquals("AzL8n0Y58m7", codec.encode(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, codec.decode("AzL8n0Y58m7"));
+        assertEquals(62L, codec.decode("10"));
+    }
+
+    @Test
+    void invalidShortCodesAreNotDecoded() {
+        final ShortCodeCodec codec = new ShortCodeCodec();
+        assertEquals(ShortCodeCodec.INVALID, codec.decode(""));
+        assertEquals(ShortCodeCodec.INVALID, codec.decode("01"));
+        assertEquals(ShortCodeCodec.INVALID, codec.decode("a-b"));
+        assertEquals(ShortCodeCodec.INVALID, codec.decode("zzzzzzzzzzz"));
+        assertEquals(ShortCodeCodec.INVALID, codec.decode("zzzzzzzzzzzz"));
+    }
+
+    @Test
+    void resolvingAllocatesNothing() {
+        final UrlShortenerImpl shortener = new UrlShortenerImpl();
+        final String shortUrl = shortener.shortenUrl("https://i.am.full.url");
+        final StringBuilder requestLine = new StringBuilder("GET /").append(shortUrl).append(" HTTP/1.1");
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        // the same calls as measured, so that nothing is loaded or compiled for the first time while measuring
+        for (int i = 0; i < 100_000; i++) {
+            assertNotNull(shortener.resolveShortenedUrl(shortUrl));
+            assertNotNull(shortener.resolveShortenedUrl(requestLine, 5, 5 + shortUrl.length()));
+        }
+
+        final long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            assertNotNull(shortener.resolveShortenedUrl(shortUrl));
+            assertNotNull(shortener.resolveShortenedUrl(requestLine, 5, 5 + shortUrl.length()));
+        }
+        final long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertTrue(allocated < 10_000, "Allocated bytes " + allocated);
+    }
+
+    @Test
+    void shuffledShortCodesAreUniqueShortAndResolvable() {
+        final ShortCodeCodec codec = new ShortCodeCodec(42L);
+        final Set<String> codes = new HashSet<>();
+        for (long id = 1; id <= 100_000; id++) {
+            final String code = codec.encode(id);
+            assertTrue(code.length() <= 6);
+            assertTrue(codes.add(code));
+            assertEquals(id, codec.decode(code));
+        }
+        assertEquals(1L << 40, codec.decode(codec.encode(1L << 40)));
+        assertNotEquals("2", codec.encode(2));
+
+        final UrlShortener shuffledShortener = new UrlShortenerImpl(codec);
+        final String shortUrl = shuffledShortener.shortenUrl("https://i.am.full.url");
+        assertEquals("https://i.am.full.url", shuffledShortener.resolveShortenedUrl(shortUrl));
+    }
+
+    @Test
+    void bulkShortenedUrlsAreDeduplicated() {
+        final UrlShortener deduplicatingShortener = new UrlShortenerImpl(UrlShortenerSettings.builder()
+                .deduplicate(true)
+                .build());
+        final String shortUrl = deduplicatingShortener.shortenUrl("https://i.am.full.url/1");
+
+        final List<String> shortUrls = deduplicatingShortener.shortenAll(
+                List.of("https://i.am.full.url/1", "https://i.am.full.url/2", "https://i.am.full.url/2"));
+
+        assertEquals(shortUrl, shortUrls.get(0));
+        assertEquals(shortUrls.get(1), shortUrls.get(2));
+        assertEquals("https://i.am.full.url/2", deduplicatingShortener.resolveShortenedUrl(shortUrls.get(2)));
+    }
+
+    @Test
+    void urlsShortenedBeforeTakeNoIdsInBulk() {
+        final UrlShortener deduplicatingShortener = new UrlShortenerImpl(UrlShortenerSettings.builder()
+                .deduplicate(true)
+                .build());
+        final ShortCodeCodec codec = new ShortCodeCodec();
+        final int prefixLength = "https://mois-shortener.ru/".length();
+        final String first = deduplicatingShortener.shortenAll(List.of("https://i.am.full.url/1")).get(0);
+
+        final List<String> shortUrls = deduplicatingShortener.shortenAll(
+                List.of("https://i.am.full.url/1", "https://i.am.full.url/2"));
+        final String last = deduplicatingShortener.shortenAll(List.of("https://i.am.full.url/3")).get(0);
+
+        final long firstId = codec.decode(first.substring(prefixLength));
+        assertEquals(first, shortUrls.get(0));
+        assertEquals(firstId + 1, codec.decode(shortUrls.get(1).substring(prefixLength)));
+        assertEquals(firstId + 2, codec.decode(last.substring(prefixLength)));
+    }
+
+    @Test
+    void blankUrlsInBulkTakeNoIds() {
+        final UrlShortener shortener = new UrlShortenerImpl();
+        final ShortCodeCodec codec = new ShortCodeCodec();
+        final int prefixLength = "https://mois-shortener.ru/".length();
+
+        final String first = shortener.shortenAll(Arrays.asList(" ", "https://i.am.full.url/1", null)).get(1);
+        final String second = shortener.shortenAll(Arrays.asList("", "https://i.am.full.url/2")).get(1);
+
+        assertEquals(codec.decode(first.substring(prefixLength)) + 1, codec.decode(second.substring(prefixLength)));
+        assertEquals(List.of(), shortener.shortenAll(List.of()));
+        assertEquals(Arrays.asList(null, null), shortener.shortenAll(Arrays.asList(" ", null)));
+    }
+
+    @Test
+    void sameUrlGetsSameCodeWhenDeduplicating() {
+        final UrlShortener deduplicatingShortener = new UrlShortenerImpl(UrlShortenerSettings.builder()
+                .deduplicate(true)
+                .expectedUrls(1_000)
+                .build());
+
+        final List<String> urlsShortened = IntStream.rangeClosed(1, 10_000)
+                .mapToObj(i -> deduplicatingShortener.shortenUrl("https://i.am.full.url/" + i % 100))
+                .collect(toUnmodifiableList());
+
+        assertEquals(100, urlsShortened.stream().distinct().count());
+        for (int i = 1; i <= 10_000; i++) {
+            final String urlShortened = urlsShortened.get(i - 1);
+            assertEquals("https://i.am.full.url/" + i % 100, deduplicatingShortener.resolveShortenedUrl(urlShortened));
+        }
+    }
+
+    @Test
+    void sameUrlShortenedConcurrentlyGetsSameCodeWhenDeduplicating() {
+        final UrlShortener deduplicatingShortener = new UrlShortenerImpl(UrlShortenerSettings.builder()
+                .deduplicate(true)
+                .build());
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        final List<CompletableFuture<String>> shortened = IntStream.range(0, 1_000)
+                .mapToObj(i -> CompletableFuture.supplyAsync(
+                        () -> deduplicatingShortener.shortenUrl("https://i.am.full.url"), executorService))
+                .collect(toUnmodifiableList());
+
+        assertEquals(1, shortened.stream().map(CompletableFuture::join).distinct().count());
+        executorService.shutdown();
+    }
+}